@@ -0,0 +1,293 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Thread-safe randomized queue. Items are spread over independently locked stripes, each an
+// array like RandomizedQueue's; random numbers come from ThreadLocalRandom, so there is no shared
+// generator and no shared counter, and an operation reads two stripe sizes and takes one lock.
+// enqueue adds to the smaller of two distinct random stripes and dequeue takes from the larger,
+// which keeps the stripes within a few items of each other; sample picks one of two stripes in
+// proportion to their sizes. A uniform item of the chosen stripe is then close to a uniform item
+// of the whole queue. Only when the chosen stripe is empty are the others scanned, so dequeue and
+// sample throw NoSuchElementException only if every stripe was empty when its lock was taken.
+// size() and isEmpty() add up the stripe sizes and are snapshots under concurrent updates.
+public class ConcurrentRandomizedQueue<Item> implements Iterable<Item> {
+    private final Stripe<Item>[] stripes;
+
+    // construct an empty randomized queue with two stripes per available processor
+    public ConcurrentRandomizedQueue() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    // construct an empty randomized queue with the given number of stripes
+    public ConcurrentRandomizedQueue(int stripes) {
+        if (stripes <= 0) {
+            throw new IllegalArgumentException("stripes must be > 0");
+        }
+        this.stripes = (Stripe<Item>[]) new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe<>(i);
+        }
+    }
+
+    // is the randomized queue empty?
+    public boolean isEmpty() {
+        for (Stripe<Item> stripe: stripes) {
+            if (stripe.size > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // return the number of items on the randomized queue
+    public int size() {
+        int size = 0;
+        for (Stripe<Item> stripe: stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    // add the item
+    public void enqueue(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("item must be not null");
+        }
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final Stripe<Item> a = stripes[random.nextInt(stripes.length)];
+        final Stripe<Item> b = other(a, random);
+        final Stripe<Item> stripe = a.size <= b.size ? a : b;
+        synchronized (stripe) {
+            stripe.add(item);
+        }
+    }
+
+    // remove and return a random item
+    public Item dequeue() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final Stripe<Item> a = stripes[random.nextInt(stripes.length)];
+        final Stripe<Item> b = other(a, random);
+        final int first = (a.size >= b.size ? a : b).index;
+        for (int i = 0; i < stripes.length; i++) {
+            final Stripe<Item> stripe = stripes[(first + i) % stripes.length];
+            synchronized (stripe) {
+                if (stripe.size > 0) {
+                    return stripe.remove(random.nextInt(stripe.size));
+                }
+            }
+        }
+        throw new NoSuchElementException("RandomizedQueue is empty");
+    }
+
+    // return a random item (but do not remove it)
+    public Item sample() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final Stripe<Item> a = stripes[random.nextInt(stripes.length)];
+        final Stripe<Item> b = other(a, random);
+        final int sizeA = a.size;
+        final int sizeB = b.size;
+        final boolean takeA = sizeA + sizeB == 0 || random.nextInt(sizeA + sizeB) < sizeA;
+        final int first = (takeA ? a : b).index;
+        for (int i = 0; i < stripes.length; i++) {
+            final Stripe<Item> stripe = stripes[(first + i) % stripes.length];
+            synchronized (stripe) {
+                if (stripe.size > 0) {
+                    return stripe.items[random.nextInt(stripe.size)];
+                }
+            }
+        }
+        throw new NoSuchElementException("RandomizedQueue is empty");
+    }
+
+    // return an independent iterator over items in random order; the items are copied one
+    // stripe at a time, so concurrent updates may or may not be seen
+    public Iterator<Item> iterator() {
+        Item[] copy = (Item[]) new Object[size()];
+        int count = 0;
+        for (Stripe<Item> stripe: stripes) {
+            synchronized (stripe) {
+                if (count + stripe.size > copy.length) {
+                    copy = Arrays.copyOf(copy, Math.max(2 * copy.length, count + stripe.size));
+                }
+                System.arraycopy(stripe.items, 0, copy, count, stripe.size);
+                count += stripe.size;
+            }
+        }
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = count - 1; i > 0; i--) {
+            final int j = random.nextInt(i + 1);
+            final Item tmp = copy[i];
+            copy[i] = copy[j];
+            copy[j] = tmp;
+        }
+        return new SnapshotIterator(copy, count);
+    }
+
+    // unit testing: producers and consumers in parallel, the spread of sample(), then throughput
+    // of enqueue/dequeue pairs for 1 to 8 threads, striped and with a single stripe (one lock)
+    public static void main(String[] args) throws InterruptedException {
+        final int producers = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        final int consumers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        final int perProducer = args.length > 2 ? Integer.parseInt(args[2]) : 250_000;
+
+        final ConcurrentRandomizedQueue<Integer> queue = new ConcurrentRandomizedQueue<>();
+        final int total = producers * perProducer;
+        final AtomicInteger[] taken = new AtomicInteger[total];
+        for (int i = 0; i < total; i++) {
+            taken[i] = new AtomicInteger();
+        }
+        final AtomicInteger remaining = new AtomicInteger(total);
+
+        final Thread[] threads = new Thread[producers + consumers];
+        for (int p = 0; p < producers; p++) {
+            final int first = p * perProducer;
+            threads[p] = new Thread(() -> {
+                for (int i = first; i < first + perProducer; i++) {
+                    queue.enqueue(i);
+                }
+            });
+        }
+        for (int c = 0; c < consumers; c++) {
+            threads[producers + c] = new Thread(() -> {
+                while (remaining.get() > 0) {
+                    try {
+                        taken[queue.dequeue()].incrementAndGet();
+                        remaining.decrementAndGet();
+                    } catch (NoSuchElementException e) {
+                        Thread.yield();
+                    }
+                }
+            });
+        }
+        for (Thread thread: threads) {
+            thread.start();
+        }
+        for (Thread thread: threads) {
+            thread.join();
+        }
+        int wrong = 0;
+        for (AtomicInteger count: taken) {
+            wrong += count.get() == 1 ? 0 : 1;
+        }
+        StdOut.println("items taken other than exactly once: " + wrong + ", left " + queue.size());
+
+        // items 0..9 spread over the stripes by enqueue; each should be sampled about 10% of the time
+        for (int i = 0; i < 10; i++) {
+            queue.enqueue(i);
+        }
+        final int[] counts = new int[10];
+        for (int i = 0; i < 1_000_000; i++) {
+            counts[queue.sample()] += 1;
+        }
+        for (int count: counts) {
+            StdOut.print(count + " ");
+        }
+        StdOut.println();
+
+        for (int t = 1; t <= 8; t *= 2) {
+            final double striped = throughput(new ConcurrentRandomizedQueue<>(), t);
+            final double locked = throughput(new ConcurrentRandomizedQueue<>(1), t);
+            StdOut.printf("%d threads: %.1f M ops/s striped, %.1f M ops/s one stripe%n",
+                          t, striped / 1e6, locked / 1e6);
+        }
+    }
+
+    // operations per second of threads that each enqueue and dequeue in turn on a queue of 1000 items
+    private static double throughput(ConcurrentRandomizedQueue<Integer> queue, int threads)
+            throws InterruptedException {
+        final int pairs = 2_000_000 / threads;
+        for (int i = 0; i < 1000; i++) {
+            queue.enqueue(i);
+        }
+        final Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                for (int i = 0; i < pairs; i++) {
+                    queue.enqueue(queue.dequeue());
+                }
+            });
+        }
+        final long start = System.nanoTime();
+        for (Thread worker: workers) {
+            worker.start();
+        }
+        for (Thread worker: workers) {
+            worker.join();
+        }
+        return 2.0 * pairs * threads / ((System.nanoTime() - start) / 1e9);
+    }
+
+    // a random stripe other than the given one, or that one if it is the only stripe
+    private Stripe<Item> other(Stripe<Item> stripe, ThreadLocalRandom random) {
+        if (stripes.length == 1) {
+            return stripe;
+        }
+        return stripes[(stripe.index + 1 + random.nextInt(stripes.length - 1)) % stripes.length];
+    }
+
+    private static class Stripe<Item> {
+        private final int index;
+        private Item[] items = (Item[]) new Object[1];
+        // volatile so that the stripes can be compared without their locks
+        private volatile int size = 0;
+
+        private Stripe(int index) {
+            this.index = index;
+        }
+
+        private void add(Item item) {
+            if (size >= items.length) {
+                items = Arrays.copyOf(items, items.length * 2);
+            }
+            items[size] = item;
+            size += 1;
+        }
+
+        // removes the item at index by moving the last item into its place
+        private Item remove(int index) {
+            final Item item = items[index];
+            final int last = size - 1;
+            items[index] = items[last];
+            items[last] = null;
+            size = last;
+            if (last > 0 && last <= items.length / 4) {
+                items = Arrays.copyOf(items, items.length / 2);
+            }
+            return item;
+        }
+    }
+
+    private class SnapshotIterator implements Iterator<Item> {
+        private final Item[] items;
+        private final int count;
+        private int index = 0;
+
+        public SnapshotIterator(Item[] items, int count) {
+            this.items = items;
+            this.count = count;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < count;
+        }
+
+        @Override
+        public Item next() {
+            if (index >= count) {
+                throw new NoSuchElementException("there is no next");
+            }
+
+            final Item item = items[index];
+            index += 1;
+            return item;
+        }
+    }
+}
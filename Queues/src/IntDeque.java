@@ -0,0 +1,172 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+// Deque of int values on the circular array of RingDeque, so nothing is boxed and no node is
+// allocated per item. It is deliberately not an Iterable<Integer>, so a for-each loop cannot box
+// by accident: iterate with iterator().nextInt() or forEach(IntConsumer), front to back.
+public class IntDeque {
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] items;
+    private int head;
+    private int size;
+
+    // construct an empty deque
+    public IntDeque() {
+        items = new int[MIN_CAPACITY];
+        head = 0;
+        size = 0;
+    }
+
+    // is the deque empty?
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // return the number of items on the deque
+    public int size() {
+        return size;
+    }
+
+    // add the item to the front
+    public void addFirst(int item) {
+        if (size == items.length) {
+            resize(items.length * 2);
+        }
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size += 1;
+    }
+
+    // add the item to the back
+    public void addLast(int item) {
+        if (size == items.length) {
+            resize(items.length * 2);
+        }
+        items[(head + size) & (items.length - 1)] = item;
+        size += 1;
+    }
+
+    // remove and return the item from the front
+    public int removeFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        final int item = items[head];
+        head = (head + 1) & (items.length - 1);
+        size -= 1;
+        shrinkIfSparse();
+        return item;
+    }
+
+    // remove and return the item from the back
+    public int removeLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        final int item = items[(head + size - 1) & (items.length - 1)];
+        size -= 1;
+        shrinkIfSparse();
+        return item;
+    }
+
+    // return an iterator over items in order from front to back
+    public PrimitiveIterator.OfInt iterator() {
+        return new IntIterator();
+    }
+
+    // performs the action for every item from front to back, without allocating
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(items[(head + i) & (items.length - 1)]);
+        }
+    }
+
+    // unit testing (required)
+    public static void main(String[] args) {
+        final IntDeque deque = new IntDeque();
+        StdOut.println(deque.isEmpty());
+
+        deque.addFirst(3);
+        deque.addFirst(2);
+        deque.addFirst(1);
+        deque.addLast(4);
+        deque.addLast(5);
+        StdOut.println(deque.isEmpty() + " " + deque.size());
+
+        deque.forEach(item -> StdOut.print(item + " "));
+        StdOut.println();
+
+        deque.removeFirst();
+        deque.removeLast();
+
+        for (PrimitiveIterator.OfInt it = deque.iterator(); it.hasNext(); ) {
+            StdOut.print(it.nextInt() + " ");
+        }
+        StdOut.println();
+
+        StdOut.println(deque.removeFirst());
+        StdOut.println(deque.removeLast());
+        StdOut.println(deque.removeFirst());
+        StdOut.println(deque.isEmpty());
+
+        // breadth-first search over the vertices 0..n-1 of a path, used as a work queue
+        final int n = 1000;
+        final int[] distance = new int[n];
+        Arrays.fill(distance, -1);
+        distance[n / 2] = 0;
+        deque.addLast(n / 2);
+        while (!deque.isEmpty()) {
+            final int v = deque.removeFirst();
+            for (int w = v - 1; w <= v + 1; w += 2) {
+                if (0 <= w && w < n && distance[w] < 0) {
+                    distance[w] = distance[v] + 1;
+                    deque.addLast(w);
+                }
+            }
+        }
+        StdOut.println(distance[0] + " " + distance[n - 1]);
+    }
+
+    private void shrinkIfSparse() {
+        if (items.length > MIN_CAPACITY && size <= items.length / 4) {
+            resize(items.length / 2);
+        }
+    }
+
+    // moves the items to a new array of the given power-of-two capacity, starting at index 0
+    private void resize(int capacity) {
+        assert capacity >= size && Integer.bitCount(capacity) == 1;
+
+        final int[] copy = new int[capacity];
+        final int firstPart = Math.min(size, items.length - head);
+        System.arraycopy(items, head, copy, 0, firstPart);
+        System.arraycopy(items, 0, copy, firstPart, size - firstPart);
+        items = copy;
+        head = 0;
+    }
+
+    private class IntIterator implements PrimitiveIterator.OfInt {
+        private int index = 0;
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public int nextInt() {
+            if (index >= size) {
+                throw new NoSuchElementException("there is no next");
+            }
+
+            final int item = items[(head + index) & (items.length - 1)];
+            index += 1;
+            return item;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.LongConsumer;
+
+// Deque of long values on the circular array of RingDeque, so nothing is boxed and no node is
+// allocated per item. It is deliberately not an Iterable<Long>, so a for-each loop cannot box
+// by accident: iterate with iterator().nextLong() or forEach(LongConsumer), front to back.
+public class LongDeque {
+    private static final int MIN_CAPACITY = 8;
+
+    private long[] items;
+    private int head;
+    private int size;
+
+    // construct an empty deque
+    public LongDeque() {
+        items = new long[MIN_CAPACITY];
+        head = 0;
+        size = 0;
+    }
+
+    // is the deque empty?
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // return the number of items on the deque
+    public int size() {
+        return size;
+    }
+
+    // add the item to the front
+    public void addFirst(long item) {
+        if (size == items.length) {
+            resize(items.length * 2);
+        }
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size += 1;
+    }
+
+    // add the item to the back
+    public void addLast(long item) {
+        if (size == items.length) {
+            resize(items.length * 2);
+        }
+        items[(head + size) & (items.length - 1)] = item;
+        size += 1;
+    }
+
+    // remove and return the item from the front
+    public long removeFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        final long item = items[head];
+        head = (head + 1) & (items.length - 1);
+        size -= 1;
+        shrinkIfSparse();
+        return item;
+    }
+
+    // remove and return the item from the back
+    public long removeLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        final long item = items[(head + size - 1) & (items.length - 1)];
+        size -= 1;
+        shrinkIfSparse();
+        return item;
+    }
+
+    // return an iterator over items in order from front to back
+    public PrimitiveIterator.OfLong iterator() {
+        return new LongIterator();
+    }
+
+    // performs the action for every item from front to back, without allocating
+    public void forEach(LongConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(items[(head + i) & (items.length - 1)]);
+        }
+    }
+
+    // unit testing (required)
+    public static void main(String[] args) {
+        final LongDeque deque = new LongDeque();
+        StdOut.println(deque.isEmpty());
+
+        deque.addFirst(3);
+        deque.addFirst(2);
+        deque.addFirst(1);
+        deque.addLast(4);
+        deque.addLast(5);
+        StdOut.println(deque.isEmpty() + " " + deque.size());
+
+        deque.forEach(item -> StdOut.print(item + " "));
+        StdOut.println();
+
+        deque.removeFirst();
+        deque.removeLast();
+
+        for (PrimitiveIterator.OfLong it = deque.iterator(); it.hasNext(); ) {
+            StdOut.print(it.nextLong() + " ");
+        }
+        StdOut.println();
+
+        StdOut.println(deque.removeFirst());
+        StdOut.println(deque.removeLast());
+        StdOut.println(deque.removeFirst());
+        StdOut.println(deque.isEmpty());
+
+        // (row, col) keys packed into one long, round-tripped through both ends
+        for (long row = 0; row < 100; row++) {
+            deque.addLast(row << 32 | 2 * row);
+            deque.addFirst(row << 32 | (2 * row + 1));
+        }
+        boolean packed = true;
+        for (long row = 99; row >= 0; row--) {
+            packed &= deque.removeFirst() == (row << 32 | (2 * row + 1));
+            packed &= deque.removeLast() == (row << 32 | 2 * row);
+        }
+        StdOut.println(packed + " " + deque.isEmpty());
+    }
+
+    private void shrinkIfSparse() {
+        if (items.length > MIN_CAPACITY && size <= items.length / 4) {
+            resize(items.length / 2);
+        }
+    }
+
+    // moves the items to a new array of the given power-of-two capacity, starting at index 0
+    private void resize(int capacity) {
+        assert capacity >= size && Integer.bitCount(capacity) == 1;
+
+        final long[] copy = new long[capacity];
+        final int firstPart = Math.min(size, items.length - head);
+        System.arraycopy(items, head, copy, 0, firstPart);
+        System.arraycopy(items, 0, copy, firstPart, size - firstPart);
+        items = copy;
+        head = 0;
+    }
+
+    private class LongIterator implements PrimitiveIterator.OfLong {
+        private int index = 0;
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public long nextLong() {
+            if (index >= size) {
+                throw new NoSuchElementException("there is no next");
+            }
+
+            final long item = items[(head + index) & (items.length - 1)];
+            index += 1;
+            return item;
+        }
+    }
+}
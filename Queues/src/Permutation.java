@@ -1,18 +1,99 @@
-import edu.princeton.cs.algs4.StdIn;
 import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Prints k strings from standard input chosen uniformly at random, in random order. The input is
+// streamed through a reservoir: the t-th string replaces a random one of the k kept with
+// probability k / t, so memory is O(k) however long the input is. Strings are split on ASCII
+// whitespace straight from a byte buffer, and only the ones the reservoir keeps are decoded.
 public class Permutation {
     public static void main(String[] args) {
         final int k = Integer.parseInt(args[0]);
+        if (k < 0) {
+            throw new IllegalArgumentException("k must be >= 0");
+        }
         final RandomizedQueue<String> queue = new RandomizedQueue<>();
 
-        while (!StdIn.isEmpty()) {
-            final String string = StdIn.readString();
-            queue.enqueue(string);
+        if (k > 0) {
+            final Tokenizer tokenizer = new Tokenizer(System.in);
+            for (long t = 1; tokenizer.next(); t++) {
+                if (queue.size() < k) {
+                    queue.enqueue(tokenizer.token());
+                } else if (StdRandom.uniform(t) < k) {
+                    queue.dequeue();
+                    queue.enqueue(tokenizer.token());
+                }
+            }
         }
-        for (int i = 0; i < k; i++) {
+        for (int i = 0; i < k && !queue.isEmpty(); i++) {
             final String item = queue.dequeue();
             StdOut.println(item);
         }
     }
+
+    // whitespace-separated tokens of a byte stream, read through one reusable buffer
+    private static class Tokenizer {
+        private final InputStream in;
+        private final byte[] buffer = new byte[1 << 16];
+        private int position = 0;
+        private int limit = 0;
+
+        private byte[] token = new byte[64];
+        private int length = 0;
+
+        public Tokenizer(InputStream in) {
+            this.in = in;
+        }
+
+        // moves to the next token; false at the end of the input
+        public boolean next() {
+            int b = read();
+            while (b >= 0 && isWhitespace(b)) {
+                b = read();
+            }
+            if (b < 0) {
+                return false;
+            }
+
+            length = 0;
+            while (b >= 0 && !isWhitespace(b)) {
+                if (length == token.length) {
+                    token = Arrays.copyOf(token, 2 * token.length);
+                }
+                token[length++] = (byte) b;
+                b = read();
+            }
+            return true;
+        }
+
+        // the current token, decoded as UTF-8
+        public String token() {
+            return new String(token, 0, length, StandardCharsets.UTF_8);
+        }
+
+        private int read() {
+            if (position == limit) {
+                try {
+                    limit = in.read(buffer);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("cannot read the input", e);
+                }
+                position = 0;
+                if (limit <= 0) {
+                    limit = 0;
+                    return -1;
+                }
+            }
+            return buffer[position++] & 0xFF;
+        }
+
+        private static boolean isWhitespace(int b) {
+            return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+        }
+    }
 }
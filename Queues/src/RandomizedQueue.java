@@ -1,12 +1,18 @@
 import edu.princeton.cs.algs4.StdOut;
 import edu.princeton.cs.algs4.StdRandom;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 public class RandomizedQueue<Item> implements Iterable<Item> {
     private int size;
     private Item[] items;
+    // number of enqueues and dequeues, so that iterators notice changes under them
+    private int modCount = 0;
 
     // construct an empty randomized queue
     public RandomizedQueue() {
@@ -37,6 +43,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
 
         items[size] = item;
         size += 1;
+        modCount += 1;
 
         final int index = StdRandom.uniform(size);
         swap(index, size - 1);
@@ -50,6 +57,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         final Item item = items[size - 1];
         size -= 1;
         items[size] = null;
+        modCount += 1;
 
         if (size > 0 && size <= items.length / 4) {
             items = copyItems(items.length / 2);
@@ -67,10 +75,25 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         return items[index];
     }
 
-    // return an independent iterator over items in random order
+    // return k distinct random items (without replacement) in random order, in O(k) time
+    public List<Item> sample(int k) {
+        if (k < 0 || k > size) {
+            throw new IllegalArgumentException("k must be in [0, size()]");
+        }
+
+        final List<Item> sample = new ArrayList<>(k);
+        final Iterator<Item> iterator = iterator();
+        for (int i = 0; i < k; i++) {
+            sample.add(iterator.next());
+        }
+        return sample;
+    }
+
+    // return an independent iterator over items in random order; it shuffles lazily, so it
+    // starts in O(1) and does O(1) work and memory per item consumed, and it must not outlive
+    // an enqueue or a dequeue
     public Iterator<Item> iterator() {
-        final Item[] copy = copyItems(size);
-        return new RandomizedIterator(copy);
+        return new RandomizedIterator();
     }
 
     // unit testing (required)
@@ -86,6 +109,7 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
             StdOut.print(queue.sample() + " ");
         }
         StdOut.println();
+        StdOut.println(queue.sample(3));
         StdOut.println();
         StdOut.println(queue.iterator());
         for (Integer item: queue) {
@@ -120,30 +144,93 @@ public class RandomizedQueue<Item> implements Iterable<Item> {
         items[j] = tmp;
     }
 
+    // Fisher-Yates on the indices 0..size-1, one step per next(): step i swaps position i with a
+    // random position j >= i and returns the index that lands on i. Only the positions that have
+    // been swapped differ from the identity, so they are kept in a small hash map.
     private class RandomizedIterator implements Iterator<Item> {
-        private final Item[] items;
-        int index;
-
-        public RandomizedIterator(Item[] items) {
-            this.items = items;
-            StdRandom.shuffle(items);
-            index = 0;
-        }
+        private final IntMap swapped = new IntMap();
+        private final int expectedModCount = modCount;
+        private final int count = size;
+        private int index = 0;
 
         @Override
         public boolean hasNext() {
-            return index < items.length;
+            return index < count;
         }
 
         @Override
         public Item next() {
-            if (index >= items.length) {
+            if (index >= count) {
                 throw new NoSuchElementException("there is no next");
             }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException("the queue changed during iteration");
+            }
 
-            final Item item = items[index];
+            final int j = index + StdRandom.uniform(count - index);
+            final int picked = swapped.get(j);
+            swapped.put(j, swapped.get(index));
             index += 1;
-            return item;
+            return items[picked];
+        }
+    }
+
+    // map from int keys >= 0 to int values with open addressing; a missing key maps to itself
+    private static class IntMap {
+        private int[] keys = newKeys(16);
+        private int[] values = new int[16];
+        private int size = 0;
+
+        public int get(int key) {
+            for (int i = slot(key, keys.length); keys[i] >= 0; i = (i + 1) & (keys.length - 1)) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return key;
+        }
+
+        public void put(int key, int value) {
+            int i = slot(key, keys.length);
+            while (keys[i] >= 0 && keys[i] != key) {
+                i = (i + 1) & (keys.length - 1);
+            }
+            if (keys[i] < 0) {
+                keys[i] = key;
+                size += 1;
+            }
+            values[i] = value;
+            if (2 * size > keys.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            final int[] oldKeys = keys;
+            final int[] oldValues = values;
+            keys = newKeys(2 * oldKeys.length);
+            values = new int[2 * oldKeys.length];
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] >= 0) {
+                    int j = slot(oldKeys[i], keys.length);
+                    while (keys[j] >= 0) {
+                        j = (j + 1) & (keys.length - 1);
+                    }
+                    keys[j] = oldKeys[i];
+                    values[j] = oldValues[i];
+                }
+            }
+        }
+
+        private static int[] newKeys(int capacity) {
+            final int[] keys = new int[capacity];
+            Arrays.fill(keys, -1);
+            return keys;
+        }
+
+        private static int slot(int key, int capacity) {
+            final int h = key * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & (capacity - 1);
         }
     }
-}
\ No newline at end of file
+}
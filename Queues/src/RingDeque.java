@@ -0,0 +1,171 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// Deque with the API of Deque, kept in a circular array instead of a linked list. The capacity
+// is a power of two, so positions wrap with a mask; it doubles when the array is full and halves
+// when it is a quarter full. That is 4 to 16 bytes per item instead of a 32-byte node, and
+// iteration walks the array in order.
+public class RingDeque<Item> implements Iterable<Item> {
+    private static final int MIN_CAPACITY = 8;
+
+    private Item[] items;
+    private int head;
+    private int size;
+
+    // construct an empty deque
+    public RingDeque() {
+        items = (Item[]) new Object[MIN_CAPACITY];
+        head = 0;
+        size = 0;
+    }
+
+    // is the deque empty?
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // return the number of items on the deque
+    public int size() {
+        return size;
+    }
+
+    // add the item to the front
+    public void addFirst(Item item) {
+        validateItem(item);
+        if (size == items.length) {
+            resize(items.length * 2);
+        }
+        head = (head - 1) & (items.length - 1);
+        items[head] = item;
+        size += 1;
+    }
+
+    // add the item to the back
+    public void addLast(Item item) {
+        validateItem(item);
+        if (size == items.length) {
+            resize(items.length * 2);
+        }
+        items[(head + size) & (items.length - 1)] = item;
+        size += 1;
+    }
+
+    // remove and return the item from the front
+    public Item removeFirst() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        final Item item = items[head];
+        items[head] = null;
+        head = (head + 1) & (items.length - 1);
+        size -= 1;
+        shrinkIfSparse();
+        return item;
+    }
+
+    // remove and return the item from the back
+    public Item removeLast() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("Deque is empty");
+        }
+        final int last = (head + size - 1) & (items.length - 1);
+        final Item item = items[last];
+        items[last] = null;
+        size -= 1;
+        shrinkIfSparse();
+        return item;
+    }
+
+    // return an iterator over items in order from front to back
+    public Iterator<Item> iterator() {
+        return new RingIterator();
+    }
+
+    // unit testing (required)
+    public static void main(String[] args) {
+        final RingDeque<Integer> deque = new RingDeque<>();
+        StdOut.println(deque.isEmpty());
+
+        deque.addFirst(3);
+        deque.addFirst(2);
+        deque.addFirst(1);
+        deque.addLast(4);
+        deque.addLast(5);
+        StdOut.println(deque.isEmpty() + " " + deque.size());
+
+        for (Integer item: deque) {
+            StdOut.print(item + " ");
+        }
+        StdOut.println();
+
+        deque.removeFirst();
+        deque.removeLast();
+
+        for (Integer item: deque) {
+            StdOut.print(item + " ");
+        }
+        StdOut.println();
+
+        StdOut.println(deque.removeFirst());
+        StdOut.println(deque.removeLast());
+        StdOut.println(deque.removeFirst());
+        StdOut.println(deque.isEmpty());
+
+        // grow past several doublings from both ends, then shrink back while checking the order
+        for (int i = 0; i < 1000; i++) {
+            deque.addLast(i);
+            deque.addFirst(-i - 1);
+        }
+        boolean ordered = deque.size() == 2000;
+        for (int i = 999; i >= 0; i--) {
+            ordered &= deque.removeFirst() == -i - 1 && deque.removeLast() == i;
+        }
+        StdOut.println(ordered + " " + deque.isEmpty());
+    }
+
+    private void validateItem(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("item must be not null");
+        }
+    }
+
+    private void shrinkIfSparse() {
+        if (items.length > MIN_CAPACITY && size <= items.length / 4) {
+            resize(items.length / 2);
+        }
+    }
+
+    // moves the items to a new array of the given power-of-two capacity, starting at index 0
+    private void resize(int capacity) {
+        assert capacity >= size && Integer.bitCount(capacity) == 1;
+
+        final Item[] copy = (Item[]) new Object[capacity];
+        final int firstPart = Math.min(size, items.length - head);
+        System.arraycopy(items, head, copy, 0, firstPart);
+        System.arraycopy(items, 0, copy, firstPart, size - firstPart);
+        items = copy;
+        head = 0;
+    }
+
+    private class RingIterator implements Iterator<Item> {
+        private int index = 0;
+
+        @Override
+        public boolean hasNext() {
+            return index < size;
+        }
+
+        @Override
+        public Item next() {
+            if (index >= size) {
+                throw new NoSuchElementException("there is no next");
+            }
+
+            final Item item = items[(head + index) & (items.length - 1)];
+            index += 1;
+            return item;
+        }
+    }
+}
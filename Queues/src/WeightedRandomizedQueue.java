@@ -0,0 +1,206 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdRandom;
+
+import java.util.NoSuchElementException;
+
+// Randomized queue whose dequeue and sample pick an item with probability proportional to its
+// weight. Items sit in an array as in RandomizedQueue, and their weights are the leaves of a
+// binary sum tree over the same slots, so a draw is a descent of the tree for a uniform point in
+// [0, total weight). enqueue, dequeue and sample are O(log n); dequeue moves the last item into
+// the freed slot. An update sets the leaf and recomputes every ancestor as the sum of its two
+// children, never by adding a difference, so no node keeps the rounding error of a weight that
+// has left: after the heaviest item goes, the others are drawn as if it had never been there.
+public class WeightedRandomizedQueue<Item> {
+    private static final int MIN_CAPACITY = 8;
+
+    private Item[] items;
+    // heap layout: node i has children 2i and 2i + 1, and the weight of slot s is the leaf
+    // tree[capacity + s]; the capacity is a power of two
+    private double[] tree;
+    private int size;
+
+    // construct an empty weighted randomized queue
+    public WeightedRandomizedQueue() {
+        resize(MIN_CAPACITY);
+    }
+
+    // is the randomized queue empty?
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // return the number of items on the randomized queue
+    public int size() {
+        return size;
+    }
+
+    // sum of the weights of the items
+    public double totalWeight() {
+        return tree[1];
+    }
+
+    // add the item with the given weight
+    public void enqueue(Item item, double weight) {
+        if (item == null) {
+            throw new IllegalArgumentException("item must be not null");
+        }
+        if (!(weight > 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("weight must be positive and finite");
+        }
+
+        if (size == items.length) {
+            resize(2 * items.length);
+        }
+        items[size] = item;
+        set(size, weight);
+        size += 1;
+    }
+
+    // remove and return a random item, picked with probability proportional to its weight
+    public Item dequeue() {
+        final int slot = pick();
+        final Item item = items[slot];
+        final int last = size - 1;
+
+        if (slot != last) {
+            items[slot] = items[last];
+            set(slot, tree[items.length + last]);
+        }
+        items[last] = null;
+        set(last, 0);
+        size = last;
+
+        if (items.length > MIN_CAPACITY && size <= items.length / 4) {
+            resize(items.length / 2);
+        }
+        return item;
+    }
+
+    // return a random item (but do not remove it), picked with probability proportional to its weight
+    public Item sample() {
+        return items[pick()];
+    }
+
+    // unit testing: items 1..4 with their own value as weight are drawn 10%, 20%, 30% and 40% of the time
+    public static void main(String[] args) {
+        final WeightedRandomizedQueue<Integer> queue = new WeightedRandomizedQueue<>();
+        StdOut.println(queue.isEmpty() + " " + queue.size());
+        for (int i = 1; i <= 4; i++) {
+            queue.enqueue(i, i);
+        }
+        StdOut.println(queue.isEmpty() + " " + queue.size() + " " + queue.totalWeight());
+
+        final int[] counts = new int[5];
+        for (int i = 0; i < 1_000_000; i++) {
+            counts[queue.sample()] += 1;
+        }
+        for (int i = 1; i <= 4; i++) {
+            StdOut.print(counts[i] / 1e6 + " ");
+        }
+        StdOut.println();
+
+        // the heavy item tends to go first
+        final int[] first = new int[5];
+        for (int trial = 0; trial < 100_000; trial++) {
+            final WeightedRandomizedQueue<Integer> q = new WeightedRandomizedQueue<>();
+            for (int i = 1; i <= 4; i++) {
+                q.enqueue(i, i);
+            }
+            first[q.dequeue()] += 1;
+            q.dequeue();
+            q.dequeue();
+            q.dequeue();
+            if (!q.isEmpty()) {
+                throw new IllegalStateException("queue must be empty");
+            }
+        }
+        for (int i = 1; i <= 4; i++) {
+            StdOut.print(first[i] / 1e5 + " ");
+        }
+        StdOut.println();
+
+        // a heavy item leaves no rounding error behind: once it is gone, the seven items of weight 1
+        // add up to 7 and are drawn evenly again
+        final WeightedRandomizedQueue<Integer> heavy = new WeightedRandomizedQueue<>();
+        heavy.enqueue(0, 1e17);
+        for (int i = 1; i <= 7; i++) {
+            heavy.enqueue(i, 1);
+        }
+        if (heavy.dequeue() != 0) {
+            throw new IllegalStateException("the heavy item must go first");
+        }
+        final int[] light = new int[8];
+        for (int i = 0; i < 700_000; i++) {
+            light[heavy.sample()] += 1;
+        }
+        StdOut.print(heavy.totalWeight() + ":");
+        for (int i = 1; i <= 7; i++) {
+            StdOut.print(" " + light[i] / 7e5);
+        }
+        StdOut.println();
+
+        // a dominant weight costs nothing extra: 1M items of weight 1 and one of weight 3M,
+        // each draw dequeued and enqueued again
+        final WeightedRandomizedQueue<Integer> dominant = new WeightedRandomizedQueue<>();
+        dominant.enqueue(0, 3e6);
+        for (int i = 1; i <= 1_000_000; i++) {
+            dominant.enqueue(i, 1);
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < 1_000_000; i++) {
+            final Integer item = dominant.dequeue();
+            dominant.enqueue(item, item == 0 ? 3e6 : 1);
+        }
+        final double micros = (System.nanoTime() - start) / 1e3 / 1_000_000;
+        StdOut.printf("dominant weight: %.2f us per dequeue and enqueue%n", micros);
+    }
+
+    // slot of a random item, with probability proportional to its weight
+    private int pick() {
+        if (isEmpty()) {
+            throw new NoSuchElementException("RandomizedQueue is empty");
+        }
+
+        // descend the tree to the leaf whose prefix of weights covers the point r
+        double r = StdRandom.uniform() * totalWeight();
+        int node = 1;
+        while (node < items.length) {
+            final int left = 2 * node;
+            if (r < tree[left]) {
+                node = left;
+            } else {
+                r -= tree[left];
+                node = left + 1;
+            }
+        }
+        // rounding can push r past the last slot
+        return Math.min(node - items.length, size - 1);
+    }
+
+    // sets the weight of slot and recomputes the sums on its path to the root
+    private void set(int slot, double weight) {
+        int node = items.length + slot;
+        tree[node] = weight;
+        for (node >>= 1; node > 0; node >>= 1) {
+            tree[node] = tree[2 * node] + tree[2 * node + 1];
+        }
+    }
+
+    // moves the items to arrays of the given capacity and rebuilds the tree from the weights
+    private void resize(int capacity) {
+        assert capacity >= size;
+
+        final Item[] newItems = (Item[]) new Object[capacity];
+        final double[] newTree = new double[2 * capacity];
+        for (int i = 0; i < size; i++) {
+            newItems[i] = items[i];
+            newTree[capacity + i] = tree[items.length + i];
+        }
+        // linear build, children before parents
+        for (int i = capacity - 1; i > 0; i--) {
+            newTree[i] = newTree[2 * i] + newTree[2 * i + 1];
+        }
+        items = newItems;
+        tree = newTree;
+    }
+}
@@ -0,0 +1,184 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+// Chase-Lev work-stealing deque. One owner thread pushes and pops at the bottom without locks;
+// any number of thieves steal from the top, competing for an item with a CAS on top. Items sit in
+// a circular array indexed by the ever growing bottom and top counters; when it is full the owner
+// copies the live range into an array twice as large, and thieves that still read the old array
+// find the same items there. The array never shrinks. All shared fields are volatile or atomic,
+// which gives the sequentially consistent ordering the algorithm is proven correct under.
+public class WorkStealingDeque<Item> {
+    private static final int MIN_CAPACITY = 16;
+
+    private final AtomicLong top = new AtomicLong();
+    private volatile long bottom = 0;
+    private volatile AtomicReferenceArray<Item> items = new AtomicReferenceArray<>(MIN_CAPACITY);
+
+    // is the deque empty? only a snapshot when other threads are working on it
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // return the number of items on the deque; only a snapshot when other threads are working on it
+    public int size() {
+        final long b = bottom;
+        final long t = top.get();
+        return (int) Math.max(0, b - t);
+    }
+
+    // add the item at the bottom; owner thread only
+    public void push(Item item) {
+        if (item == null) {
+            throw new IllegalArgumentException("item must be not null");
+        }
+
+        final long b = bottom;
+        final long t = top.get();
+        AtomicReferenceArray<Item> a = items;
+        if (b - t >= a.length()) {
+            a = grow(a, b, t);
+            items = a;
+        }
+        a.set((int) b & (a.length() - 1), item);
+        bottom = b + 1;
+    }
+
+    // remove and return the item at the bottom, or null if the deque is empty; owner thread only
+    public Item pop() {
+        final long b = bottom - 1;
+        final AtomicReferenceArray<Item> a = items;
+        // the volatile write of bottom comes before the read of top, so a thief that sees the
+        // old bottom must still win the CAS on top to take the last item
+        bottom = b;
+        final long t = top.get();
+        if (t > b) {
+            bottom = b + 1;
+            return null;
+        }
+
+        final int index = (int) b & (a.length() - 1);
+        Item item = a.get(index);
+        if (t == b) {
+            // the last item: race the thieves for it
+            if (!top.compareAndSet(t, t + 1)) {
+                item = null;
+            }
+            bottom = b + 1;
+        }
+        if (item != null) {
+            a.set(index, null);
+        }
+        return item;
+    }
+
+    // remove and return the item at the top, or null if the deque is empty; any thread
+    public Item steal() {
+        while (true) {
+            final long t = top.get();
+            final long b = bottom;
+            if (t >= b) {
+                return null;
+            }
+
+            final AtomicReferenceArray<Item> a = items;
+            final Item item = a.get((int) t & (a.length() - 1));
+            // the slot is not cleared: once top moves on, the owner may already reuse it
+            if (top.compareAndSet(t, t + 1)) {
+                return item;
+            }
+        }
+    }
+
+    // stress test: java WorkStealingDeque thieves items
+    public static void main(String[] args) throws InterruptedException {
+        final int thieves = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        final int n = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+
+        final WorkStealingDeque<Integer> deque = new WorkStealingDeque<>();
+        final AtomicBoolean done = new AtomicBoolean();
+        final IntDeque[] stolen = new IntDeque[thieves];
+        final boolean[] ordered = new boolean[thieves + 1];
+        final Thread[] threads = new Thread[thieves];
+        for (int i = 0; i < thieves; i++) {
+            final int thief = i;
+            stolen[thief] = new IntDeque();
+            ordered[thief] = true;
+            threads[thief] = new Thread(() -> {
+                // the owner pushes increasing values and top only moves forward,
+                // so every thief must see its items in increasing order
+                int last = -1;
+                while (!done.get() || !deque.isEmpty()) {
+                    final Integer item = deque.steal();
+                    if (item != null) {
+                        ordered[thief] &= item > last;
+                        last = item;
+                        stolen[thief].addLast(item);
+                    }
+                }
+            });
+            threads[thief].start();
+        }
+
+        // the owner pushes 0..n-1 and after every eighth push pops 0 to 3 items, so that the
+        // thieves take most of the work; between two pushes its pops must decrease
+        final IntDeque popped = new IntDeque();
+        ordered[thieves] = true;
+        int lastPopped = Integer.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            deque.push(i);
+            lastPopped = Integer.MAX_VALUE;
+            for (int k = (i & 7) == 0 ? (i * 0x9E3779B9) >>> 30 : 0; k > 0; k--) {
+                final Integer item = deque.pop();
+                if (item == null) {
+                    break;
+                }
+                ordered[thieves] &= item < lastPopped;
+                lastPopped = item;
+                popped.addLast(item);
+            }
+        }
+        for (Integer item = deque.pop(); item != null; item = deque.pop()) {
+            ordered[thieves] &= item < lastPopped;
+            lastPopped = item;
+            popped.addLast(item);
+        }
+        done.set(true);
+        for (Thread thread: threads) {
+            thread.join();
+        }
+
+        // linearizable: every pushed item was taken exactly once, by a thief or by the owner
+        final int[] taken = new int[n];
+        popped.forEach(item -> taken[item] += 1);
+        int totalStolen = 0;
+        for (IntDeque items: stolen) {
+            items.forEach(item -> taken[item] += 1);
+            totalStolen += items.size();
+        }
+        int lost = 0;
+        int duplicated = 0;
+        for (int count: taken) {
+            lost += count == 0 ? 1 : 0;
+            duplicated += count > 1 ? 1 : 0;
+        }
+        boolean allOrdered = true;
+        for (boolean o: ordered) {
+            allOrdered &= o;
+        }
+        StdOut.println("stolen " + totalStolen + ", popped " + popped.size() + ", lost " + lost
+                       + ", duplicated " + duplicated + ", ordered " + allOrdered);
+        StdOut.println(lost == 0 && duplicated == 0 && allOrdered ? "OK" : "FAILED");
+    }
+
+    // copies the items top..bottom-1 into an array twice as large, at the same counter positions
+    private AtomicReferenceArray<Item> grow(AtomicReferenceArray<Item> a, long b, long t) {
+        final AtomicReferenceArray<Item> copy = new AtomicReferenceArray<>(2 * a.length());
+        for (long i = t; i < b; i++) {
+            copy.set((int) i & (copy.length() - 1), a.get((int) i & (a.length() - 1)));
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,121 @@
+import java.util.Arrays;
+
+// Bond percolation on an n-by-n grid: every site is present, and the bonds between neighbouring
+// sites start blocked. Bonds 0..n(n-1)-1 are horizontal, bond row * (n - 1) + col joining sites
+// (row, col) and (row, col + 1) counted from 0; the rest are vertical, bond n(n-1) + row * n + col
+// joining (row, col) and (row + 1, col). Memory is 5 bytes per site for the SiteUnionFind plus
+// 2 bits per site for the open bonds; under PercolationStats every worker adds a bit per bond
+// for the bonds it has drawn, that is 2 more bits per site.
+public class BondPercolation implements Lattice {
+    private final int n;
+    private final int bonds;
+    private final SiteUnionFind sites;
+    private final long[] open;
+
+    private int openBonds = 0;
+    private boolean percolates = false;
+
+    // creates n-by-n grid of sites with all bonds initially blocked
+    public BondPercolation(int n) {
+        if (n <= 1) {
+            throw new IllegalArgumentException("n must be > 1");
+        }
+        if (n > 32768) {
+            throw new IllegalArgumentException("2 * n * (n - 1) must fit into int");
+        }
+
+        this.n = n;
+        this.bonds = 2 * n * (n - 1);
+        this.sites = new SiteUnionFind(n * n);
+        this.open = new long[(bonds + 63) >>> 6];
+        reset();
+    }
+
+    // number of bonds
+    @Override
+    public int size() {
+        return bonds;
+    }
+
+    // opens the bond if it is not open already
+    @Override
+    public void open(int bond) {
+        validate(bond);
+
+        if ((open[bond >>> 6] & (1L << bond)) != 0) {
+            return;
+        }
+        open[bond >>> 6] |= 1L << bond;
+        openBonds += 1;
+
+        final int horizontal = n * (n - 1);
+        final int v;
+        final int u;
+        if (bond < horizontal) {
+            v = bond / (n - 1) * n + bond % (n - 1);
+            u = v + 1;
+        } else {
+            v = bond - horizontal;
+            u = v + n;
+        }
+        final int root = sites.union(v, u);
+        if (root >= 0 && (sites.flags(root) & SiteUnionFind.SPANNING) == SiteUnionFind.SPANNING) {
+            percolates = true;
+        }
+    }
+
+    // is the bond open?
+    public boolean isOpen(int bond) {
+        validate(bond);
+
+        return (open[bond >>> 6] & (1L << bond)) != 0;
+    }
+
+    // is the site (row, col), counted from 1, connected to the top row?
+    public boolean isFull(int row, int col) {
+        if (!(1 <= row && row <= n && 1 <= col && col <= n)) {
+            throw new IllegalArgumentException("row and col must be inside the grid");
+        }
+
+        if (PercolationCounters.ENABLED) {
+            sites.counters().isFull();
+        }
+        return (sites.flags(n * (row - 1) + (col - 1)) & SiteUnionFind.TOP) != 0;
+    }
+
+    // returns the number of open bonds
+    public int numberOfOpenBonds() {
+        return openBonds;
+    }
+
+    // does the system percolate?
+    @Override
+    public boolean percolates() {
+        return percolates;
+    }
+
+    // hot-path counters of the union-find under this lattice
+    @Override
+    public PercolationCounters counters() {
+        return sites.counters();
+    }
+
+    // blocks all bonds again; every site is open on its own
+    @Override
+    public void reset() {
+        for (int v = 0; v < n * n; v++) {
+            final int top = v < n ? SiteUnionFind.TOP : 0;
+            final int bottom = v >= n * (n - 1) ? SiteUnionFind.BOTTOM : 0;
+            sites.open(v, (byte) (top | bottom));
+        }
+        Arrays.fill(open, 0);
+        openBonds = 0;
+        percolates = false;
+    }
+
+    private void validate(int bond) {
+        if (bond < 0 || bond >= bonds) {
+            throw new IllegalArgumentException("bond must be inside the grid");
+        }
+    }
+}
@@ -0,0 +1,130 @@
+// Site percolation on an L-by-L-by-L cubic lattice, from the top face (z = 1) to the bottom one
+// (z = L). Coordinates run from 1 to L, and site (x, y, z) has the flat index
+// L * L * (z - 1) + L * (y - 1) + (x - 1). Memory is the 5 bytes per site of the SiteUnionFind,
+// so L = 500 (125M sites) takes about 625 MB. Under PercolationStats every worker also keeps one
+// bit per site for the sites it has drawn, which makes about 640 MB per worker at L = 500.
+public class CubicPercolation implements Lattice {
+    private final int l;
+    private final int layer;
+    private final SiteUnionFind sites;
+
+    private int openSites = 0;
+    private boolean percolates = false;
+
+    // creates L-by-L-by-L lattice, with all sites initially blocked
+    public CubicPercolation(int l) {
+        if (l <= 0) {
+            throw new IllegalArgumentException("L must be > 0");
+        }
+        if (l > 1290) {
+            throw new IllegalArgumentException("L^3 must fit into int");
+        }
+
+        this.l = l;
+        this.layer = l * l;
+        this.sites = new SiteUnionFind(layer * l);
+    }
+
+    // number of sites
+    @Override
+    public int size() {
+        return layer * l;
+    }
+
+    // opens the site (x, y, z) if it is not open already
+    public void open(int x, int y, int z) {
+        validate(x, y, z);
+
+        open(layer * (z - 1) + l * (y - 1) + (x - 1), x, y, z);
+    }
+
+    // opens the site with the given flat index if it is not open already
+    @Override
+    public void open(int site) {
+        if (site < 0 || site >= layer * l) {
+            throw new IllegalArgumentException("site must be inside the lattice");
+        }
+
+        open(site, site % l + 1, site % layer / l + 1, site / layer + 1);
+    }
+
+    // is the site (x, y, z) open?
+    public boolean isOpen(int x, int y, int z) {
+        validate(x, y, z);
+
+        return sites.isOpen(layer * (z - 1) + l * (y - 1) + (x - 1));
+    }
+
+    // is the site (x, y, z) connected to the top face through open sites?
+    public boolean isFull(int x, int y, int z) {
+        validate(x, y, z);
+
+        if (PercolationCounters.ENABLED) {
+            sites.counters().isFull();
+        }
+        final int v = layer * (z - 1) + l * (y - 1) + (x - 1);
+        return sites.isOpen(v) && (sites.flags(v) & SiteUnionFind.TOP) != 0;
+    }
+
+    // returns the number of open sites
+    public int numberOfOpenSites() {
+        return openSites;
+    }
+
+    // does the system percolate?
+    @Override
+    public boolean percolates() {
+        return percolates;
+    }
+
+    // hot-path counters of the union-find under this lattice
+    @Override
+    public PercolationCounters counters() {
+        return sites.counters();
+    }
+
+    // blocks all sites again
+    @Override
+    public void reset() {
+        sites.reset();
+        openSites = 0;
+        percolates = false;
+    }
+
+    private void open(int v, int x, int y, int z) {
+        if (sites.isOpen(v)) {
+            return;
+        }
+
+        openSites += 1;
+        sites.open(v, (byte) ((z == 1 ? SiteUnionFind.TOP : 0) | (z == l ? SiteUnionFind.BOTTOM : 0)));
+        if (x > 1 && sites.isOpen(v - 1)) {
+            sites.union(v, v - 1);
+        }
+        if (x < l && sites.isOpen(v + 1)) {
+            sites.union(v, v + 1);
+        }
+        if (y > 1 && sites.isOpen(v - l)) {
+            sites.union(v, v - l);
+        }
+        if (y < l && sites.isOpen(v + l)) {
+            sites.union(v, v + l);
+        }
+        if (z > 1 && sites.isOpen(v - layer)) {
+            sites.union(v, v - layer);
+        }
+        if (z < l && sites.isOpen(v + layer)) {
+            sites.union(v, v + layer);
+        }
+
+        if ((sites.flags(v) & SiteUnionFind.SPANNING) == SiteUnionFind.SPANNING) {
+            percolates = true;
+        }
+    }
+
+    private void validate(int x, int y, int z) {
+        if (!(1 <= x && x <= l && 1 <= y && y <= l && 1 <= z && z <= l)) {
+            throw new IllegalArgumentException("x, y and z must be inside the lattice");
+        }
+    }
+}
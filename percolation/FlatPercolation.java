@@ -0,0 +1,163 @@
+// Percolation on flat arrays: sites are numbered row by row from 0 and kept in a SiteUnionFind,
+// so the top/bottom flags live on the cluster roots instead of in virtual top and bottom sites.
+public class FlatPercolation implements PercolationEngine {
+    private final int n;
+    private final SiteUnionFind sites;
+
+    private int openSites = 0;
+    private boolean percolates = false;
+
+    // creates n-by-n grid, with all sites initially blocked
+    public FlatPercolation(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be > 0");
+        }
+        if (n > 46340) {
+            throw new IllegalArgumentException("n * n must fit into int");
+        }
+
+        this.n = n;
+        this.sites = new SiteUnionFind(n * n);
+    }
+
+    // creates n-by-n grid on the first n * n sites of an existing union-find, so that storage
+    // can be shared between grids of different sizes; the sites are blocked by the first reset
+    public FlatPercolation(int n, SiteUnionFind sites) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be > 0");
+        }
+        if (n > 46340 || n * n > sites.size()) {
+            throw new IllegalArgumentException("n * n sites must fit into the union-find");
+        }
+
+        this.n = n;
+        this.sites = sites;
+    }
+
+    // opens the site (row, col) if it is not open already
+    @Override
+    public void open(int row, int col) {
+        validate(row, col);
+
+        open(toId(row, col), row, col);
+    }
+
+    // opens the site with the given flat index if it is not open already
+    @Override
+    public void open(int site) {
+        if (site < 0 || site >= n * n) {
+            throw new IllegalArgumentException("site must be inside the grid");
+        }
+
+        open(site, site / n + 1, site % n + 1);
+    }
+
+    // bulk open over flat indices: the range is checked once, each site with a single unsigned
+    // compare, and percolation is read from the field instead of through percolates()
+    @Override
+    public int openAll(int[] sites, int from, int to, boolean stopAtPercolation) {
+        if (sites == null || from < 0 || from > to || to > sites.length) {
+            throw new IllegalArgumentException("[from, to) must be a range of sites");
+        }
+
+        int percolatedAt = percolates ? from : -1;
+        for (int i = from; i < to && !(stopAtPercolation && percolatedAt >= 0); i++) {
+            final int site = sites[i];
+            if (Integer.compareUnsigned(site, n * n) >= 0) {
+                throw new IllegalArgumentException("site must be inside the grid");
+            }
+            open(site, site / n + 1, site % n + 1);
+            if (percolatedAt < 0 && percolates) {
+                percolatedAt = i + 1;
+            }
+        }
+        return percolatedAt;
+    }
+
+    // is the site (row, col) open?
+    @Override
+    public boolean isOpen(int row, int col) {
+        validate(row, col);
+
+        return sites.isOpen(toId(row, col));
+    }
+
+    // is the site (row, col) full?
+    @Override
+    public boolean isFull(int row, int col) {
+        validate(row, col);
+
+        if (PercolationCounters.ENABLED) {
+            sites.counters().isFull();
+        }
+        final int v = toId(row, col);
+        return sites.isOpen(v) && (sites.flags(v) & SiteUnionFind.TOP) != 0;
+    }
+
+    // number of sites
+    @Override
+    public int size() {
+        return n * n;
+    }
+
+    // returns the number of open sites
+    @Override
+    public int numberOfOpenSites() {
+        return openSites;
+    }
+
+    // does the system percolate?
+    @Override
+    public boolean percolates() {
+        return percolates;
+    }
+
+    // hot-path counters of the union-find under this lattice
+    @Override
+    public PercolationCounters counters() {
+        return sites.counters();
+    }
+
+    // blocks all sites again
+    @Override
+    public void reset() {
+        sites.reset(n * n);
+        openSites = 0;
+        percolates = false;
+    }
+
+    private void open(int v, int row, int col) {
+        if (sites.isOpen(v)) {
+            return;
+        }
+
+        openSites += 1;
+        sites.open(v, (byte) ((row == 1 ? SiteUnionFind.TOP : 0) | (row == n ? SiteUnionFind.BOTTOM : 0)));
+        if (row > 1 && sites.isOpen(v - n)) {
+            sites.union(v, v - n);
+        }
+        if (row < n && sites.isOpen(v + n)) {
+            sites.union(v, v + n);
+        }
+        if (col > 1 && sites.isOpen(v - 1)) {
+            sites.union(v, v - 1);
+        }
+        if (col < n && sites.isOpen(v + 1)) {
+            sites.union(v, v + 1);
+        }
+
+        if ((sites.flags(v) & SiteUnionFind.SPANNING) == SiteUnionFind.SPANNING) {
+            percolates = true;
+        }
+    }
+
+    private void validate(int row, int col) {
+        if (!(1 <= row && row <= n && 1 <= col && col <= n)) {
+            throw new IllegalArgumentException("row and col must be inside the grid");
+        }
+    }
+
+    private int toId(int row, int col) {
+        return n * (row - 1) + (col - 1);
+    }
+}
@@ -25,7 +25,7 @@ public class InteractivePercolationVisualizer {
         StdOut.println(n);
 
         StdDraw.enableDoubleBuffering();
-        Percolation perc = new Percolation(n);
+        Percolation perc = new Percolation(n, true);
         PercolationVisualizer.draw(perc, n);
         StdDraw.show();
 
@@ -50,8 +50,8 @@ public class InteractivePercolationVisualizer {
                     perc.open(i, j);
                 }
 
-                // draw n-by-n percolation system
-                PercolationVisualizer.draw(perc, n);
+                // repaint the sites that changed
+                PercolationVisualizer.drawChanges(perc, n);
                 StdDraw.show();
             }
 
@@ -0,0 +1,39 @@
+// a percolation system whose elements (sites or bonds) are numbered 0..size()-1 and start blocked;
+// this is what the Monte Carlo driver of PercolationStats needs from a model
+public interface Lattice {
+    // number of elements
+    int size();
+
+    // opens the element if it is not open already
+    void open(int element);
+
+    // does the system percolate?
+    boolean percolates();
+
+    // opens elements[from..to-1] in order and returns the end index of the shortest prefix after
+    // which the system percolates: from if it percolated already, i + 1 if opening elements[i]
+    // made it percolate, -1 if it still does not percolate; with stopAtPercolation the elements
+    // past that index are left blocked
+    default int openAll(int[] elements, int from, int to, boolean stopAtPercolation) {
+        if (elements == null || from < 0 || from > to || to > elements.length) {
+            throw new IllegalArgumentException("[from, to) must be a range of elements");
+        }
+
+        int percolatedAt = percolates() ? from : -1;
+        for (int i = from; i < to && !(stopAtPercolation && percolatedAt >= 0); i++) {
+            open(elements[i]);
+            if (percolatedAt < 0 && percolates()) {
+                percolatedAt = i + 1;
+            }
+        }
+        return percolatedAt;
+    }
+
+    // blocks all elements again, reusing the storage where possible
+    void reset();
+
+    // hot-path counters of the lattice, or null if it is not instrumented
+    default PercolationCounters counters() {
+        return null;
+    }
+}
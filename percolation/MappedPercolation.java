@@ -0,0 +1,330 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Percolation whose union-find lives outside the heap, in a memory-mapped file: an int of parent
+// link per site (a root stores minus its cluster size) followed by a byte of open/top/bottom flags
+// per site, both in row-major order, 5 bytes per site in total. The file is mapped in 1 GiB segments,
+// so grids far larger than the heap work, and when they exceed RAM the OS pages the file in and out.
+// Neighbouring sites are neighbouring bytes (or one row apart), union is by size and find halves
+// paths, so most accesses stay within a few pages.
+public class MappedPercolation implements PercolationEngine, AutoCloseable {
+    private static final int SEGMENT_BITS = 30;
+    private static final long SEGMENT_MASK = (1L << SEGMENT_BITS) - 1;
+
+    private final int n;
+    private final File file;
+    private final boolean temporary;
+    private final RandomAccessFile storage;
+    private final MappedByteBuffer[] parent;
+    private final MappedByteBuffer[] status;
+
+    private final PercolationCounters counters = new PercolationCounters();
+
+    private int openSites = 0;
+    private boolean percolates = false;
+
+    // creates n-by-n grid, with all sites initially blocked, backed by a temporary file
+    public MappedPercolation(int n) {
+        this(n, createTempFile(), true);
+    }
+
+    // creates n-by-n grid, with all sites initially blocked, backed by the given file (overwritten)
+    public MappedPercolation(int n, File file) {
+        this(n, file, false);
+    }
+
+    private MappedPercolation(int n, File file, boolean temporary) {
+        if (file == null) {
+            throw new IllegalArgumentException("file must be not null");
+        }
+        if (n <= 0 || n > 46340) {
+            deleteIfTemporary(file, temporary);
+            throw new IllegalArgumentException(n <= 0 ? "n must be > 0" : "n * n must fit into int");
+        }
+
+        this.n = n;
+        this.file = file;
+        this.temporary = temporary;
+        final long sites = (long) n * n;
+        RandomAccessFile opened = null;
+        try {
+            // a freshly extended file reads as zeros, that is, as all sites blocked
+            opened = new RandomAccessFile(file, "rw");
+            opened.setLength(0);
+            opened.setLength(5 * sites);
+            final FileChannel channel = opened.getChannel();
+            parent = map(channel, 0, 4 * sites);
+            status = map(channel, 4 * sites, sites);
+            storage = opened;
+        } catch (IOException | RuntimeException e) {
+            // do not leak the descriptor or the temporary file of a grid that was never built
+            if (opened != null) {
+                try {
+                    opened.close();
+                } catch (IOException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            deleteIfTemporary(file, temporary);
+            if (e instanceof IOException) {
+                throw new UncheckedIOException("cannot map " + file, (IOException) e);
+            }
+            throw (RuntimeException) e;
+        }
+    }
+
+    // opens the site (row, col) if it is not open already
+    @Override
+    public void open(int row, int col) {
+        validate(row, col);
+
+        open(toId(row, col), row, col);
+    }
+
+    // opens the site with the given flat index if it is not open already
+    @Override
+    public void open(int site) {
+        if (site < 0 || site >= n * n) {
+            throw new IllegalArgumentException("site must be inside the grid");
+        }
+
+        open(site, site / n + 1, site % n + 1);
+    }
+
+    // is the site (row, col) open?
+    @Override
+    public boolean isOpen(int row, int col) {
+        validate(row, col);
+
+        return status(toId(row, col)) != 0;
+    }
+
+    // is the site (row, col) full?
+    @Override
+    public boolean isFull(int row, int col) {
+        validate(row, col);
+
+        if (PercolationCounters.ENABLED) {
+            counters.isFull();
+        }
+        final int v = toId(row, col);
+        return status(v) != 0 && (status(find(v)) & SiteUnionFind.TOP) != 0;
+    }
+
+    // number of sites
+    @Override
+    public int size() {
+        return n * n;
+    }
+
+    // returns the number of open sites
+    @Override
+    public int numberOfOpenSites() {
+        return openSites;
+    }
+
+    // does the system percolate?
+    @Override
+    public boolean percolates() {
+        return percolates;
+    }
+
+    // hot-path counters of the union-find of this grid; they only move with -Dpercolation.counters=true
+    @Override
+    public PercolationCounters counters() {
+        return counters;
+    }
+
+    // blocks all sites again by zeroing the flags; parent links are rewritten when a site is opened
+    @Override
+    public void reset() {
+        for (MappedByteBuffer segment: status) {
+            for (int i = 0; i + 8 <= segment.capacity(); i += 8) {
+                segment.putLong(i, 0);
+            }
+            for (int i = segment.capacity() & ~7; i < segment.capacity(); i++) {
+                segment.put(i, (byte) 0);
+            }
+        }
+        openSites = 0;
+        percolates = false;
+    }
+
+    // closes the backing file (and deletes it if it is temporary); the mapping itself
+    // is released by the JVM once the buffers are collected
+    @Override
+    public void close() {
+        try {
+            storage.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot close " + file, e);
+        }
+        deleteIfTemporary(file, temporary);
+    }
+
+    // randomized check against FlatPercolation: java MappedPercolation n rounds
+    public static void main(String[] args) {
+        final int maxN = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        final SplittableRandom random = new SplittableRandom(12345);
+        for (int round = 0; round < rounds; round++) {
+            final int n = 1 + random.nextInt(maxN);
+            final FlatPercolation expected = new FlatPercolation(n);
+            try (MappedPercolation actual = new MappedPercolation(n)) {
+                // a second pass after reset checks that reset leaves no state behind
+                for (int pass = 0; pass < 2; pass++) {
+                    expected.reset();
+                    actual.reset();
+                    for (int k = 0; k < n * n; k++) {
+                        final int site = random.nextInt(n * n);
+                        expected.open(site);
+                        actual.open(site);
+                        final int row = 1 + random.nextInt(n);
+                        final int col = 1 + random.nextInt(n);
+                        if (expected.isOpen(row, col) != actual.isOpen(row, col)
+                                || expected.isFull(row, col) != actual.isFull(row, col)
+                                || expected.percolates() != actual.percolates()
+                                || expected.numberOfOpenSites() != actual.numberOfOpenSites()) {
+                            throw new IllegalStateException("differs from FlatPercolation, n = " + n);
+                        }
+                    }
+                    if (!Arrays.equals(expected.fullSites(), actual.fullSites())) {
+                        throw new IllegalStateException("fullSites differ, n = " + n);
+                    }
+                }
+            }
+        }
+        StdOut.println("OK: " + rounds + " random grids agree with FlatPercolation");
+    }
+
+    private static void deleteIfTemporary(File file, boolean temporary) {
+        if (temporary && !file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private static File createTempFile() {
+        try {
+            final File file = File.createTempFile("percolation", ".uf");
+            file.deleteOnExit();
+            return file;
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot create a temporary file", e);
+        }
+    }
+
+    private static MappedByteBuffer[] map(FileChannel channel, long from, long length) throws IOException {
+        final int segments = (int) ((length + SEGMENT_MASK) >>> SEGMENT_BITS);
+        final MappedByteBuffer[] buffers = new MappedByteBuffer[segments];
+        for (int i = 0; i < segments; i++) {
+            final long offset = (long) i << SEGMENT_BITS;
+            final long size = Math.min(length - offset, 1L << SEGMENT_BITS);
+            buffers[i] = channel.map(FileChannel.MapMode.READ_WRITE, from + offset, size);
+            buffers[i].order(ByteOrder.nativeOrder());
+        }
+        return buffers;
+    }
+
+    // segments hold a multiple of 4 bytes, so no int straddles two of them
+    private int parent(int v) {
+        final long offset = 4L * v;
+        return parent[(int) (offset >>> SEGMENT_BITS)].getInt((int) (offset & SEGMENT_MASK));
+    }
+
+    private void setParent(int v, int value) {
+        final long offset = 4L * v;
+        parent[(int) (offset >>> SEGMENT_BITS)].putInt((int) (offset & SEGMENT_MASK), value);
+    }
+
+    private byte status(int v) {
+        return status[v >>> SEGMENT_BITS].get((int) (v & SEGMENT_MASK));
+    }
+
+    private void setStatus(int v, byte value) {
+        status[v >>> SEGMENT_BITS].put((int) (v & SEGMENT_MASK), value);
+    }
+
+    private void open(int v, int row, int col) {
+        if (status(v) != 0) {
+            return;
+        }
+
+        openSites += 1;
+        setParent(v, -1);
+        final int flags = (row == 1 ? SiteUnionFind.TOP : 0) | (row == n ? SiteUnionFind.BOTTOM : 0);
+        setStatus(v, (byte) (SiteUnionFind.OPEN | flags));
+        if (row > 1 && status(v - n) != 0) {
+            union(v, v - n);
+        }
+        if (row < n && status(v + n) != 0) {
+            union(v, v + n);
+        }
+        if (col > 1 && status(v - 1) != 0) {
+            union(v, v - 1);
+        }
+        if (col < n && status(v + 1) != 0) {
+            union(v, v + 1);
+        }
+
+        if ((status(find(v)) & SiteUnionFind.SPANNING) == SiteUnionFind.SPANNING) {
+            percolates = true;
+        }
+    }
+
+    private int find(int v) {
+        int length = 0;
+        int p = parent(v);
+        while (p >= 0) {
+            final int grandparent = parent(p);
+            if (grandparent >= 0) {
+                setParent(v, grandparent);
+                p = grandparent;
+            }
+            v = p;
+            p = parent(v);
+            length += 1;
+        }
+        if (PercolationCounters.ENABLED) {
+            counters.find(length);
+        }
+        return v;
+    }
+
+    private void union(int v, int u) {
+        int rootV = find(v);
+        int rootU = find(u);
+        if (rootV == rootU) {
+            return;
+        }
+        if (parent(rootV) > parent(rootU)) {
+            final int tmp = rootV;
+            rootV = rootU;
+            rootU = tmp;
+        }
+        setParent(rootV, parent(rootV) + parent(rootU));
+        setParent(rootU, rootV);
+        setStatus(rootV, (byte) (status(rootV) | status(rootU)));
+        if (PercolationCounters.ENABLED) {
+            counters.union();
+        }
+    }
+
+    private void validate(int row, int col) {
+        if (!(1 <= row && row <= n && 1 <= col && col <= n)) {
+            throw new IllegalArgumentException("row and col must be inside the grid");
+        }
+    }
+
+    private int toId(int row, int col) {
+        return n * (row - 1) + (col - 1);
+    }
+}
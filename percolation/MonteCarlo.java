@@ -0,0 +1,102 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+public final class MonteCarlo implements AutoCloseable {
+    // trials run by one leaf task; fixed, so the split of the work does not depend on the pool size
+    private static final int CHUNK = 4;
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final ForkJoinPool pool;
+    private final ThreadLocal<Trial> workers;
+    private final long seed;
+
+    // one independent trial; an instance is used by a single worker thread at a time
+    public interface Trial {
+        double run(SplittableRandom random);
+    }
+
+    // a pool of the given size; each worker thread gets its own trial from the supplier
+    // and keeps it for all the runs of this driver
+    public MonteCarlo(int threads, long seed, Supplier<? extends Trial> trials) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be > 0");
+        }
+        this.pool = new ForkJoinPool(threads);
+        this.workers = ThreadLocal.withInitial(trials);
+        this.seed = seed;
+    }
+
+    // runs trials [from, to) and stores the outcome of trial i in results[i]
+    public void run(double[] results, int from, int to) {
+        if (from < 0 || from > to || to > results.length) {
+            throw new IllegalArgumentException("trial range must be inside results");
+        }
+        pool.invoke(new Task(workers, seed, results, from, to));
+    }
+
+    // shuts the pool down
+    @Override
+    public void close() {
+        pool.shutdown();
+    }
+
+    // random stream of the given trial: it depends only on the master seed and the trial index
+    public static SplittableRandom random(long seed, int trial) {
+        return new SplittableRandom(mix64(seed + GOLDEN_GAMMA * (trial + 1L)));
+    }
+
+    // fills the array with a uniformly random permutation of 0..a.length-1 ("inside-out" Fisher-Yates);
+    // the previous contents are ignored, so a buffer reused across trials does not leak state between them
+    public static void permutation(int[] a, SplittableRandom random) {
+        permutation(a, a.length, random);
+    }
+
+    // same, for the first length entries of a larger buffer
+    public static void permutation(int[] a, int length, SplittableRandom random) {
+        for (int i = 0; i < length; i++) {
+            final int j = random.nextInt(i + 1);
+            a[i] = a[j];
+            a[j] = i;
+        }
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static class Task extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final ThreadLocal<Trial> workers;
+        private final long seed;
+        private final double[] results;
+        private final int from;
+        private final int to;
+
+        public Task(ThreadLocal<Trial> workers, long seed, double[] results, int from, int to) {
+            this.workers = workers;
+            this.seed = seed;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                final Trial trial = workers.get();
+                for (int i = from; i < to; i++) {
+                    results[i] = trial.run(random(seed, i));
+                }
+                return;
+            }
+            final int mid = (from + to) >>> 1;
+            invokeAll(new Task(workers, seed, results, from, mid),
+                      new Task(workers, seed, results, mid, to));
+        }
+    }
+}
@@ -1,6 +1,6 @@
-import edu.princeton.cs.algs4.WeightedQuickUnionUF;
+import java.util.Arrays;
 
-public class Percolation {
+public class Percolation implements PercolationEngine {
     private final int n;
     private final int topId;
     private final int bottomId;
@@ -8,12 +8,28 @@ public class Percolation {
     private final int[] dRow = { -1, 1,  0, 0};
     private final int[] dCol = {  0, 0, -1, 1};
     private final boolean[] connectedToBottom;
-    private final WeightedQuickUnionUF unionFindTop;
+    // weighted quick-union as in algs4's WeightedQuickUnionUF (union by size, no path compression),
+    // kept here so that its find loop can be counted and reset() can clear it in place
+    private final int[] parent;
+    private final int[] clusterSize;
+
+    // change tracking: the sites of a cluster form a circular list through next
+    private final int[] next;
+    private final int[] fullingRoots = new int[4];
+    private int[] changed;
+    private int changedCount = 0;
+
+    private final PercolationCounters counters = new PercolationCounters();
 
     private int openSites = 0;
 
     // creates n-by-n grid, with all sites initially blocked
     public Percolation(int n) {
+        this(n, false);
+    }
+
+    // same, and when trackChanges is set, remembers the sites whose colour changed (see changedSites)
+    public Percolation(int n, boolean trackChanges) {
         if (n <= 0) {
             throw new IllegalArgumentException("n must be > 0");
         }
@@ -23,20 +39,41 @@ public class Percolation {
         this.bottomId = n * n + 1;
         this.open = new boolean[n + 1][n + 1];
         int vertices = n * n + 2;
-        this.unionFindTop = new WeightedQuickUnionUF(vertices);
+        this.parent = new int[vertices];
+        this.clusterSize = new int[vertices];
         this.connectedToBottom = new boolean[vertices];
+        clearUnionFind();
+        this.next = trackChanges ? new int[n * n] : null;
+        this.changed = trackChanges ? new int[Math.min(n * n, 64)] : null;
     }
 
     // opens the site (row, col) if it is not open already
     public void open(int row, int col) {
         validate(row, col);
 
-        if (isOpen(row, col)) {
+        openSite(row, col);
+    }
+
+    // opens the site with the given flat index if it is not open already
+    public void open(int site) {
+        if (site < 0 || site >= n * n) {
+            throw new IllegalArgumentException("site must be inside the grid");
+        }
+
+        openSite(site / n + 1, site % n + 1);
+    }
+
+    // open for a site inside the grid, validated by the caller
+    private void openSite(int row, int col) {
+        if (open[row][col]) {
             return;
         }
 
         openSites += 1;
         open[row][col] = true;
+        if (next != null) {
+            recordChanges(row, col);
+        }
         for (int i = 0; i < dRow.length; i++) {
             int rowTo = row + dRow[i];
             int colTo = col + dCol[i];
@@ -51,7 +88,7 @@ public class Percolation {
             union(toId(row, col), topId);
         }
         if (row == n) {
-            connectedToBottom[unionFindTop.find(toId(row, col))] = true;
+            connectedToBottom[find(toId(row, col))] = true;
         }
     }
 
@@ -66,7 +103,15 @@ public class Percolation {
     public boolean isFull(int row, int col) {
         validate(row, col);
 
-        return unionFindTop.connected(toId(row, col), topId);
+        if (PercolationCounters.ENABLED) {
+            counters.isFull();
+        }
+        return find(toId(row, col)) == find(topId);
+    }
+
+    // number of sites
+    public int size() {
+        return n * n;
     }
 
     // returns the number of open sites
@@ -79,15 +124,163 @@ public class Percolation {
         return connectedToBottom(topId);
     }
 
+    // bitmap of the full sites, bit toId(row, col) for the site (row, col); the same pass as
+    // PercolationEngine.fullSites, reading open directly and finding the top root once
+    public long[] fullSites() {
+        final long[] full = new long[(n * n + 63) >>> 6];
+        final int topRoot = find(topId);
+        for (int row = 1; row <= n; row++) {
+            for (int col = 1; col <= n; col++) {
+                if (!open[row][col]) {
+                    continue;
+                }
+                // row 0 and column 0 of open are never set, so the first row and column need no check
+                final int v = toId(row, col);
+                final boolean isFull;
+                if (open[row - 1][col]) {
+                    isFull = (full[(v - n) >>> 6] & (1L << (v - n))) != 0;
+                } else if (open[row][col - 1]) {
+                    isFull = (full[(v - 1) >>> 6] & (1L << (v - 1))) != 0;
+                } else {
+                    isFull = find(v) == topRoot;
+                }
+                if (isFull) {
+                    full[v >>> 6] |= 1L << v;
+                }
+            }
+        }
+        return full;
+    }
+
+    // hot-path counters of this grid; they only move with -Dpercolation.counters=true
+    public PercolationCounters counters() {
+        return counters;
+    }
+
+    // blocks all sites again, reusing the arrays
+    public void reset() {
+        for (boolean[] row: open) {
+            Arrays.fill(row, false);
+        }
+        Arrays.fill(connectedToBottom, false);
+        clearUnionFind();
+        openSites = 0;
+        changedCount = 0;
+    }
+
+    // sites, as toId(row, col), that were opened or became full since the previous call
+    public int[] changedSites() {
+        if (next == null) {
+            throw new IllegalStateException("changes are not tracked");
+        }
+
+        final int[] sites = Arrays.copyOf(changed, changedCount);
+        changedCount = 0;
+        return sites;
+    }
+
+    // records the site being opened and, if opening it fills its neighbours' clusters,
+    // every site of the clusters that were not full yet; each site becomes full once,
+    // so walking those clusters costs O(n^2) over the whole life of the system
+    private void recordChanges(int row, int col) {
+        final int v = toId(row, col);
+        next[v] = v;
+        addChange(v);
+
+        final int topRoot = find(topId);
+        boolean becomesFull = row == 1;
+        for (int i = 0; i < dRow.length; i++) {
+            int rowTo = row + dRow[i];
+            int colTo = col + dCol[i];
+            if (check(rowTo, colTo) && open[rowTo][colTo]) {
+                becomesFull |= find(toId(rowTo, colTo)) == topRoot;
+            }
+        }
+        if (!becomesFull) {
+            return;
+        }
+
+        int roots = 0;
+        for (int i = 0; i < dRow.length; i++) {
+            int rowTo = row + dRow[i];
+            int colTo = col + dCol[i];
+            if (!(check(rowTo, colTo) && open[rowTo][colTo])) {
+                continue;
+            }
+            final int u = toId(rowTo, colTo);
+            final int root = find(u);
+            boolean seen = root == topRoot;
+            for (int j = 0; j < roots; j++) {
+                seen |= fullingRoots[j] == root;
+            }
+            if (seen) {
+                continue;
+            }
+            fullingRoots[roots++] = root;
+            int w = u;
+            do {
+                addChange(w);
+                w = next[w];
+            } while (w != u);
+        }
+    }
+
+    private void addChange(int v) {
+        if (changedCount == changed.length) {
+            changed = Arrays.copyOf(changed, 2 * changed.length);
+        }
+        changed[changedCount++] = v;
+    }
+
     private boolean connectedToBottom(int v) {
-        return connectedToBottom[unionFindTop.find(v)];
+        return connectedToBottom[find(v)];
+    }
+
+    private void clearUnionFind() {
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+            clusterSize[i] = 1;
+        }
+    }
+
+    private int find(int v) {
+        int length = 0;
+        while (v != parent[v]) {
+            v = parent[v];
+            length += 1;
+        }
+        if (PercolationCounters.ENABLED) {
+            counters.find(length);
+        }
+        return v;
     }
 
     private void union(int v, int u) {
-        boolean reachesBottom = connectedToBottom(v) || connectedToBottom(u);
-        unionFindTop.union(v, u);
-        if (reachesBottom) {
-            connectedToBottom[unionFindTop.find(v)] = true;
+        final int rootV = find(v);
+        final int rootU = find(u);
+        if (rootV == rootU) {
+            return;
+        }
+        if (next != null && u != topId) {
+            // splice the two circular member lists into one
+            final int tmp = next[v];
+            next[v] = next[u];
+            next[u] = tmp;
+        }
+        // the smaller tree goes under the root of the larger
+        final int root;
+        if (clusterSize[rootV] < clusterSize[rootU]) {
+            parent[rootV] = rootU;
+            clusterSize[rootU] += clusterSize[rootV];
+            root = rootU;
+        } else {
+            parent[rootU] = rootV;
+            clusterSize[rootV] += clusterSize[rootU];
+            root = rootV;
+        }
+        connectedToBottom[root] |= connectedToBottom[rootV] || connectedToBottom[rootU];
+        if (PercolationCounters.ENABLED) {
+            counters.union();
         }
     }
 
@@ -0,0 +1,168 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+
+// Micro-benchmark of the percolation engines: open() throughput, reset() time, percolates()
+// latency and the time of a full trial, for every engine and grid size. Each measurement is warmed
+// up first and then averaged over several rounds; allocation is read from the thread's allocation
+// counter, so an engine that starts allocating on the hot path shows up as bytes per operation.
+// The open rounds start from a grid reset outside the timed and counted part, and reset() has
+// its own columns.
+public final class PercolationBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+    // percolates() calls per round
+    private static final int QUERIES = 1 << 22;
+    // sites opened per trial round, at least one trial
+    private static final int TRIAL_SITES = 1 << 22;
+
+    private static final ThreadMXBean THREADS = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // results are folded in here so that the JIT cannot drop the measured work
+    private static long sink;
+
+    private PercolationBenchmark() { }
+
+    // test client: java PercolationBenchmark n1 n2 ... (default 100 1000; 10000 needs a large heap)
+    public static void main(String[] args) {
+        int[] sizes = {100, 1000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+
+        final Map<String, IntFunction<? extends PercolationEngine>> engines = new LinkedHashMap<>();
+        engines.put("Percolation", Percolation::new);
+        engines.put("FlatPercolation", FlatPercolation::new);
+        engines.put("BitPackedPercolation", BitPackedPercolation::new);
+        engines.put("RollbackPercolation", RollbackPercolation::new);
+        engines.put("MappedPercolation", MappedPercolation::new);
+
+        StdOut.printf("%-22s %6s %12s %10s %10s %10s %16s %12s %14s%n", "engine", "n", "open ns/op",
+                      "open B/op", "reset us", "reset B", "percolates ns/op", "trial ms", "trial B/trial");
+        for (int n: sizes) {
+            for (Map.Entry<String, IntFunction<? extends PercolationEngine>> engine: engines.entrySet()) {
+                run(engine.getKey(), engine.getValue(), n);
+            }
+        }
+        StdOut.println("(" + sink + ")");
+    }
+
+    private static void run(String name, IntFunction<? extends PercolationEngine> engines, int n) {
+        PercolationEngine engine = null;
+        try {
+            engine = engines.apply(n);
+            final int[] ids = new int[n * n];
+            MonteCarlo.permutation(ids, new SplittableRandom(n));
+
+            final LongSupplier fill = openAll(engine, ids);
+            final double[] open = measure(engine::reset, fill);
+            final double[] reset = measure(fill::getAsLong, resets(engine));
+            final double[] percolates = measure(percolates(engine, ids));
+            final double[] trial = measure(trials(engine, ids));
+            StdOut.printf("%-22s %6d %12.2f %10.2f %10.2f %10.0f %16.2f %12.3f %14.0f%n", name, n, open[0],
+                          open[1], reset[0] / 1e3, reset[1], percolates[0], trial[0] / 1e6, trial[1]);
+        } catch (OutOfMemoryError e) {
+            StdOut.printf("%-22s %6d skipped: out of memory%n", name, n);
+        } finally {
+            if (engine instanceof AutoCloseable) {
+                try {
+                    ((AutoCloseable) engine).close();
+                } catch (Exception e) {
+                    throw new IllegalStateException("cannot close " + name, e);
+                }
+            }
+        }
+    }
+
+    // opens every site one by one in a fixed random order; the grid must have been reset
+    private static LongSupplier openAll(PercolationEngine engine, int[] ids) {
+        return () -> {
+            for (int id: ids) {
+                engine.open(id);
+            }
+            sink += engine.numberOfOpenSites();
+            return ids.length;
+        };
+    }
+
+    // blocks all sites again, several times per round; every engine clears its arrays whatever
+    // is open, so only the first reset of a round starts from a full grid
+    private static LongSupplier resets(PercolationEngine engine) {
+        final int resets = Math.max(1, TRIAL_SITES / engine.size());
+        return () -> {
+            for (int i = 0; i < resets; i++) {
+                engine.reset();
+            }
+            return resets;
+        };
+    }
+
+    // asks percolates() over and over on a grid with half of its sites open
+    private static LongSupplier percolates(PercolationEngine engine, int[] ids) {
+        engine.reset();
+        for (int i = 0; i < ids.length / 2; i++) {
+            engine.open(ids[i]);
+        }
+        return () -> {
+            long hits = 0;
+            for (int i = 0; i < QUERIES; i++) {
+                if (engine.percolates()) {
+                    hits += 1;
+                }
+            }
+            sink += hits;
+            return QUERIES;
+        };
+    }
+
+    // full Monte Carlo trials as PercolationStats runs them: shuffle, then open until percolation
+    private static LongSupplier trials(PercolationEngine engine, int[] ids) {
+        final SplittableRandom random = new SplittableRandom(ids.length);
+        final int trials = Math.max(1, TRIAL_SITES / ids.length);
+        return () -> {
+            for (int t = 0; t < trials; t++) {
+                engine.reset();
+                MonteCarlo.permutation(ids, random);
+                sink += engine.openAll(ids, 0, ids.length, true);
+            }
+            return trials;
+        };
+    }
+
+    // runs the warmup rounds, then the measured ones; returns nanoseconds and bytes allocated per op
+    private static double[] measure(LongSupplier round) {
+        return measure(() -> { }, round);
+    }
+
+    // same, running setup before every round outside the timed and counted part
+    private static double[] measure(Runnable setup, LongSupplier round) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            setup.run();
+            round.getAsLong();
+        }
+
+        final long thread = Thread.currentThread().getId();
+        long ops = 0;
+        long nanos = 0;
+        long bytes = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            setup.run();
+            final long allocated = THREADS.getThreadAllocatedBytes(thread);
+            final long start = System.nanoTime();
+            ops += round.getAsLong();
+            nanos += System.nanoTime() - start;
+            bytes += THREADS.getThreadAllocatedBytes(thread) - allocated;
+        }
+        return new double[] {nanos / (double) ops, bytes / (double) ops};
+    }
+}
@@ -0,0 +1,78 @@
+// Counters of the union-find hot path: unions, find calls, the parent links they followed (in
+// total and at most in one call) and isFull queries. Counting is opt-in with
+// -Dpercolation.counters=true; ENABLED is a static final, so when it is off the JIT drops the
+// guarded updates and open() runs exactly as without instrumentation.
+public final class PercolationCounters {
+    public static final boolean ENABLED = Boolean.getBoolean("percolation.counters");
+
+    private long unions;
+    private long finds;
+    private long pathLength;
+    private int maxPathLength;
+    private long isFullQueries;
+
+    // number of unions that merged two clusters
+    public long unions() {
+        return unions;
+    }
+
+    // number of find calls
+    public long finds() {
+        return finds;
+    }
+
+    // parent links followed by all find calls
+    public long pathLength() {
+        return pathLength;
+    }
+
+    // most parent links followed by one find call
+    public int maxPathLength() {
+        return maxPathLength;
+    }
+
+    // number of isFull queries
+    public long isFullQueries() {
+        return isFullQueries;
+    }
+
+    // adds the counts of other to these; the maximum path length becomes the larger of the two
+    public void add(PercolationCounters other) {
+        unions += other.unions;
+        finds += other.finds;
+        pathLength += other.pathLength;
+        maxPathLength = Math.max(maxPathLength, other.maxPathLength);
+        isFullQueries += other.isFullQueries;
+    }
+
+    // sets all counts to 0
+    public void reset() {
+        unions = 0;
+        finds = 0;
+        pathLength = 0;
+        maxPathLength = 0;
+        isFullQueries = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "unions = " + unions + ", finds = " + finds + ", path length = " + pathLength
+                + " (max " + maxPathLength + "), isFull queries = " + isFullQueries;
+    }
+
+    void union() {
+        unions += 1;
+    }
+
+    void find(int length) {
+        finds += 1;
+        pathLength += length;
+        if (length > maxPathLength) {
+            maxPathLength = length;
+        }
+    }
+
+    void isFull() {
+        isFullQueries += 1;
+    }
+}
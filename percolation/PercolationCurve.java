@@ -0,0 +1,208 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Newman-Ziff estimate of the whole percolation curve: every trial opens all n^2 sites
+// in random order and records the state of the system after each opening.
+public class PercolationCurve {
+    private final int sites;
+    private final double[] percolation;
+    private final double[] largestCluster;
+    private final double[] clusters;
+
+    // perform independent trials on an n-by-n grid in parallel;
+    // the results depend only on the seed, not on the number of threads
+    public PercolationCurve(int n, int trials, long seed, int threads) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be > 0");
+        }
+        if (trials <= 0) {
+            throw new IllegalArgumentException("trials must be > 0");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be > 0");
+        }
+
+        sites = n * n;
+        final List<Experiment> workers = new ArrayList<>();
+        final double[] percolatedAt = new double[trials];
+        try (MonteCarlo monteCarlo = new MonteCarlo(threads, seed, () -> {
+            final Experiment experiment = new Experiment(n);
+            synchronized (workers) {
+                workers.add(experiment);
+            }
+            return experiment;
+        })) {
+            monteCarlo.run(percolatedAt, 0, trials);
+        }
+
+        // sums are exact integers, so the merge order of the workers does not matter
+        final long[] largestSum = new long[sites + 1];
+        final long[] clustersSum = new long[sites + 1];
+        for (Experiment worker: workers) {
+            for (int k = 0; k <= sites; k++) {
+                largestSum[k] += worker.largestSum[k];
+                clustersSum[k] += worker.clustersSum[k];
+            }
+        }
+
+        final long[] percolatedCount = new long[sites + 1];
+        for (double k: percolatedAt) {
+            percolatedCount[(int) k] += 1;
+        }
+
+        percolation = new double[sites + 1];
+        largestCluster = new double[sites + 1];
+        clusters = new double[sites + 1];
+        long percolated = 0;
+        for (int k = 0; k <= sites; k++) {
+            percolated += percolatedCount[k];
+            percolation[k] = percolated / (double) trials;
+            largestCluster[k] = largestSum[k] / (double) trials;
+            clusters[k] = clustersSum[k] / (double) trials;
+        }
+    }
+
+    // test client: prints the curve for n = 200 at a few values of p
+    public static void main(String[] args) {
+        final PercolationCurve curve = new PercolationCurve(200, 100, 42, Runtime.getRuntime().availableProcessors());
+        for (int i = 50; i <= 70; i++) {
+            final double p = i / 100.0;
+            StdOut.printf("%.2f %.4f %.1f %.1f\n", p, curve.percolationProbability(p),
+                          curve.largestCluster(p), curve.clusters(p));
+        }
+    }
+
+    // number of sites in the grid
+    public int sites() {
+        return sites;
+    }
+
+    // probability that the system percolates when exactly k sites are open
+    public double percolationProbability(int k) {
+        validate(k);
+        return percolation[k];
+    }
+
+    // mean size of the largest cluster when exactly k sites are open
+    public double largestCluster(int k) {
+        validate(k);
+        return largestCluster[k];
+    }
+
+    // mean number of clusters when exactly k sites are open
+    public double clusters(int k) {
+        validate(k);
+        return clusters[k];
+    }
+
+    // probability that the system percolates when each site is open with probability p
+    public double percolationProbability(double p) {
+        return convolve(percolation, p);
+    }
+
+    // mean size of the largest cluster when each site is open with probability p
+    public double largestCluster(double p) {
+        return convolve(largestCluster, p);
+    }
+
+    // mean number of clusters when each site is open with probability p
+    public double clusters(double p) {
+        return convolve(clusters, p);
+    }
+
+    private void validate(int k) {
+        if (k < 0 || k > sites) {
+            throw new IllegalArgumentException("k must be in [0, n^2]");
+        }
+    }
+
+    // averages values[k] over the binomial(sites, p) distribution of k;
+    // weights are built outwards from the mode so that none of them underflows prematurely
+    private double convolve(double[] values, double p) {
+        if (!(0 <= p && p <= 1)) {
+            throw new IllegalArgumentException("p must be in [0, 1]");
+        }
+        if (p == 0 || p == 1) {
+            return values[p == 0 ? 0 : sites];
+        }
+
+        final int mode = (int) Math.min(sites, Math.floor((sites + 1) * p));
+        final double ratio = p / (1 - p);
+        double sum = values[mode];
+        double total = 1;
+
+        double weight = 1;
+        for (int k = mode; k < sites && weight > 1e-18 * total; k++) {
+            weight *= (sites - k) / (k + 1.0) * ratio;
+            sum += weight * values[k + 1];
+            total += weight;
+        }
+        weight = 1;
+        for (int k = mode; k > 0 && weight > 1e-18 * total; k--) {
+            weight *= k / (sites - k + 1.0) / ratio;
+            sum += weight * values[k - 1];
+            total += weight;
+        }
+        return sum / total;
+    }
+
+    private static class Experiment implements MonteCarlo.Trial {
+        private final int n;
+        private final int[] ids;
+        private final SiteUnionFind sites;
+        private final long[] largestSum;
+        private final long[] clustersSum;
+
+        public Experiment(int n) {
+            this.n = n;
+            this.ids = new int[n * n];
+            this.sites = new SiteUnionFind(n * n);
+            this.largestSum = new long[n * n + 1];
+            this.clustersSum = new long[n * n + 1];
+        }
+
+        // opens every site and returns the number of open sites at which the system first percolated
+        @Override
+        public double run(SplittableRandom random) {
+            sites.reset();
+            MonteCarlo.permutation(ids, random);
+
+            int percolatedAt = ids.length;
+            int largest = 0;
+            int clusters = 0;
+            for (int k = 0; k < ids.length; k++) {
+                final int site = ids[k];
+                final int col = site % n;
+                sites.open(site, (byte) ((site < n ? SiteUnionFind.TOP : 0)
+                                         | (site >= ids.length - n ? SiteUnionFind.BOTTOM : 0)));
+                clusters += 1;
+
+                if (site >= n && sites.isOpen(site - n) && sites.union(site, site - n) >= 0) {
+                    clusters -= 1;
+                }
+                if (site < ids.length - n && sites.isOpen(site + n) && sites.union(site, site + n) >= 0) {
+                    clusters -= 1;
+                }
+                if (col > 0 && sites.isOpen(site - 1) && sites.union(site, site - 1) >= 0) {
+                    clusters -= 1;
+                }
+                if (col < n - 1 && sites.isOpen(site + 1) && sites.union(site, site + 1) >= 0) {
+                    clusters -= 1;
+                }
+
+                final int root = sites.find(site);
+                largest = Math.max(largest, sites.clusterSize(root));
+                final boolean spanning = (sites.flags(root) & SiteUnionFind.SPANNING) == SiteUnionFind.SPANNING;
+                if (percolatedAt == ids.length && spanning) {
+                    percolatedAt = k + 1;
+                }
+                largestSum[k + 1] += largest;
+                clustersSum[k + 1] += clusters;
+            }
+            return percolatedAt;
+        }
+    }
+}
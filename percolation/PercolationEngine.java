@@ -0,0 +1,50 @@
+// an n-by-n site percolation system; rows and columns are numbered from 1 to n,
+// and as a Lattice its sites are numbered n * (row - 1) + (col - 1)
+public interface PercolationEngine extends Lattice {
+    // opens the site (row, col) if it is not open already
+    void open(int row, int col);
+
+    // is the site (row, col) open?
+    boolean isOpen(int row, int col);
+
+    // is the site (row, col) full?
+    boolean isFull(int row, int col);
+
+    // returns the number of open sites
+    int numberOfOpenSites();
+
+    // bitmap of the full sites: bit n * (row - 1) + (col - 1) of the packed words is set
+    // when the site (row, col) is full; built in one pass over the grid, where an open site with
+    // an open neighbour above or to the left is in the same cluster and copies that neighbour's
+    // bit, so isFull is asked only where a cluster first shows up in a row. This goes through the
+    // validated accessors once per site; an engine that can read its own arrays overrides it
+    default long[] fullSites() {
+        final int n = (int) Math.round(Math.sqrt(size()));
+        final long[] full = new long[(n * n + 63) >>> 6];
+        // openAbove[col] is whether (row - 1, col) is open; column 0 stays blocked
+        final boolean[] openAbove = new boolean[n + 1];
+        for (int row = 1; row <= n; row++) {
+            boolean openLeft = false;
+            for (int col = 1; col <= n; col++) {
+                final boolean isOpen = isOpen(row, col);
+                final int v = n * (row - 1) + (col - 1);
+                if (isOpen) {
+                    final boolean isFull;
+                    if (openAbove[col]) {
+                        isFull = (full[(v - n) >>> 6] & (1L << (v - n))) != 0;
+                    } else if (openLeft) {
+                        isFull = (full[(v - 1) >>> 6] & (1L << (v - 1))) != 0;
+                    } else {
+                        isFull = isFull(row, col);
+                    }
+                    if (isFull) {
+                        full[v >>> 6] |= 1L << v;
+                    }
+                }
+                openAbove[col] = isOpen;
+                openLeft = isOpen;
+            }
+        }
+        return full;
+    }
+}
@@ -1,34 +1,93 @@
 import edu.princeton.cs.algs4.StdRandom;
 import edu.princeton.cs.algs4.StdStats;
 
+import java.io.File;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
 public class PercolationStats {
+    // adaptive runs never stop before this many trials, so that the stddev estimate is meaningful
+    private static final int MIN_TRIALS = 30;
+    private static final int MIN_BATCH = 64;
+    private static final long CHECKPOINT_MILLIS = 60_000;
+
     private final double stddev;
     private final double mean;
     private final int trials;
+    private final PercolationCounters counters;
+    private final int countedTrials;
 
     // perform independent trials on an n-by-n grid
     public PercolationStats(int n, int trials) {
-        if (n <= 0) {
-            throw new IllegalArgumentException("n must be > 0");
-        }
-        if (trials <= 0) {
-            throw new IllegalArgumentException("trials must be > 0");
-        }
+        this(n, trials, StdRandom.uniform(Long.MAX_VALUE), Runtime.getRuntime().availableProcessors());
+    }
 
+    // perform independent trials on an n-by-n grid in parallel;
+    // the results depend only on the seed, not on the number of threads
+    public PercolationStats(int n, int trials, long seed, int threads) {
+        this(n, trials, seed, threads, FlatPercolation::new);
+    }
 
-        final double[] p = new double[trials];
-        for (int i = 0; i < trials; i++) {
-            p[i] = runExperiement(n);
-        }
-        mean = StdStats.mean(p);
-        stddev = StdStats.stddev(p);
-        this.trials = trials;
+    // same, with the engine created for a grid size by the given factory
+    public PercolationStats(int n, int trials, long seed, int threads,
+                            IntFunction<? extends PercolationEngine> engines) {
+        this(lattices(n, engines), trials, seed, threads);
+    }
+
+    // perform independent trials on lattices made by the given factory (one per worker thread),
+    // opening their elements in random order until they percolate
+    public PercolationStats(Supplier<? extends Lattice> lattices, int trials, long seed, int threads) {
+        this(run(lattices, trials, seed, threads));
+    }
+
+    // same as PercolationStats(n, trials, seed, threads), saving the completed trials to the checkpoint
+    // file about once a minute; restarted with the same file and arguments, a run continues where it
+    // stopped and ends with the same numbers as an uninterrupted one
+    public PercolationStats(int n, int trials, long seed, int threads, File checkpoint) {
+        this(runResumable(n, trials, seed, threads, checkpoint));
+    }
+
+    // perform trials on an n-by-n grid until the half-width of the 95% confidence interval
+    // drops to halfWidth or maxTrials trials are done; the stopping point depends only on the seed
+    public PercolationStats(int n, double halfWidth, int maxTrials, long seed, int threads) {
+        this(n, halfWidth, maxTrials, seed, threads, FlatPercolation::new);
+    }
+
+    // same, with the engine created for a grid size by the given factory
+    public PercolationStats(int n, double halfWidth, int maxTrials, long seed, int threads,
+                            IntFunction<? extends PercolationEngine> engines) {
+        this(lattices(n, engines), halfWidth, maxTrials, seed, threads);
+    }
+
+    // same, on lattices made by the given factory
+    public PercolationStats(Supplier<? extends Lattice> lattices, double halfWidth, int maxTrials,
+                            long seed, int threads) {
+        this(runUntil(lattices, halfWidth, maxTrials, seed, threads));
     }
 
-    // test client (see below)
+    private PercolationStats(Outcome outcome) {
+        mean = StdStats.mean(outcome.p);
+        stddev = StdStats.stddev(outcome.p);
+        trials = outcome.p.length;
+        counters = outcome.counted > 0 ? outcome.counters : null;
+        countedTrials = outcome.counted;
+    }
+
+    // test client (see below); run with -Dpercolation.counters=true to also see the hot-path counters
     public static void main(String[] args) {
         final PercolationStats stats = new PercolationStats(200, 100);
         System.out.println(stats.confidenceLo() + " < " + stats.mean() + " < " + stats.confidenceHi());
+        if (stats.counters() != null) {
+            final PercolationCounters c = stats.counters();
+            final int k = stats.countedTrials();
+            System.out.println("per trial: unions = " + c.unions() / k + ", finds = " + c.finds() / k
+                               + ", path length = " + c.pathLength() / k + ", isFull queries = "
+                               + c.isFullQueries() / k + "; longest find path = " + c.maxPathLength());
+        } else if (PercolationCounters.ENABLED) {
+            System.out.println("counters: the lattice is not instrumented");
+        }
     }
 
     // sample mean of percolation threshold
@@ -41,6 +100,11 @@ public class PercolationStats {
         return stddev;
     }
 
+    // number of trials the estimates are based on
+    public int trials() {
+        return trials;
+    }
+
     // low endpoint of 95% confidence interval
     public double confidenceLo() {
         return mean - 1.96 * stddev / Math.sqrt(trials);
@@ -51,18 +115,178 @@ public class PercolationStats {
         return mean + 1.96 * stddev / Math.sqrt(trials);
     }
 
-    private double runExperiement(int n) {
-        final Percolation percolation = new Percolation(n);
-        final int[] ids = new int[n * n];
+    // hot-path counters summed over countedTrials() trials, the maximum path length being the
+    // largest of any trial; null unless -Dpercolation.counters=true and the lattice is instrumented
+    // (its counters() is not null)
+    public PercolationCounters counters() {
+        return counters;
+    }
+
+    // number of trials summed in counters(); an adaptive run can count a few more trials
+    // than trials(), because the batch in which it stops is run to its end
+    public int countedTrials() {
+        return countedTrials;
+    }
+
+    private static Supplier<Lattice> lattices(int n, IntFunction<? extends PercolationEngine> engines) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be > 0");
+        }
+        return () -> engines.apply(n);
+    }
+
+    private static Outcome run(Supplier<? extends Lattice> lattices, int trials, long seed, int threads) {
+        validate(trials, threads);
+
+        final Outcome outcome = new Outcome();
+        final double[] p = new double[trials];
+        final Supplier<Experiment> experiments = () -> new Experiment(lattices.get(), outcome);
+        try (MonteCarlo monteCarlo = new MonteCarlo(threads, seed, experiments)) {
+            monteCarlo.run(p, 0, trials);
+        }
+        return outcome.of(p);
+    }
+
+    private static Outcome runResumable(int n, int trials, long seed, int threads, File checkpoint) {
+        final Supplier<Lattice> lattices = lattices(n, FlatPercolation::new);
+        validate(trials, threads);
+        if (checkpoint == null) {
+            throw new IllegalArgumentException("checkpoint must be not null");
+        }
+
+        final Outcome outcome = new Outcome();
+        final double[] p = new double[trials];
+        int completed = TrialCheckpoint.read(checkpoint, n * n, seed, p);
+        final Supplier<Experiment> experiments = () -> new Experiment(lattices.get(), outcome);
+        try (MonteCarlo monteCarlo = new MonteCarlo(threads, seed, experiments)) {
+            long saved = System.currentTimeMillis();
+            while (completed < trials) {
+                final int to = Math.min(trials, completed + Math.max(MIN_BATCH, 16 * threads));
+                monteCarlo.run(p, completed, to);
+                completed = to;
+                if (completed == trials || System.currentTimeMillis() - saved >= CHECKPOINT_MILLIS) {
+                    TrialCheckpoint.write(checkpoint, n * n, seed, p, completed);
+                    saved = System.currentTimeMillis();
+                }
+            }
+        }
+        return outcome.of(p);
+    }
+
+    // sequential sampling: trials run in batches that grow with the number of trials done,
+    // and the running mean and variance (Welford) are checked after every trial in index order
+    private static Outcome runUntil(Supplier<? extends Lattice> lattices, double halfWidth, int maxTrials,
+                                     long seed, int threads) {
+        validate(maxTrials, threads);
+        if (!(halfWidth > 0)) {
+            throw new IllegalArgumentException("halfWidth must be > 0");
+        }
+
+        final Outcome outcome = new Outcome();
+        final double[] p = new double[maxTrials];
+        double mean = 0;
+        double squares = 0;
+        final Supplier<Experiment> experiments = () -> new Experiment(lattices.get(), outcome);
+        try (MonteCarlo monteCarlo = new MonteCarlo(threads, seed, experiments)) {
+            for (int from = 0; from < maxTrials; ) {
+                final int to = Math.min(maxTrials, from + Math.max(MIN_BATCH, from / 4));
+                monteCarlo.run(p, from, to);
+                for (int i = from; i < to; i++) {
+                    final double delta = p[i] - mean;
+                    mean += delta / (i + 1);
+                    squares += delta * (p[i] - mean);
+
+                    final int count = i + 1;
+                    if (count >= MIN_TRIALS && 1.96 * Math.sqrt(squares / (count - 1) / count) <= halfWidth) {
+                        return outcome.of(Arrays.copyOf(p, count));
+                    }
+                }
+                from = to;
+            }
+        }
+        return outcome.of(p);
+    }
+
+    private static void validate(int trials, int threads) {
+        if (trials <= 0) {
+            throw new IllegalArgumentException("trials must be > 0");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be > 0");
+        }
+    }
 
-        for (int i = 0; i < ids.length; i++) {
-            ids[i] = i;
+    // results of a run and, with counters on, the sum of the counters of its trials
+    private static class Outcome {
+        private final PercolationCounters counters =
+                PercolationCounters.ENABLED ? new PercolationCounters() : null;
+        private int counted = 0;
+        private double[] p;
+
+        private Outcome of(double[] p) {
+            this.p = p;
+            return this;
         }
 
-        StdRandom.shuffle(ids);
-        for (int i = 0; i < ids.length && !percolation.percolates(); i += 1) {
-            percolation.open((ids[i] / n) + 1, (ids[i] % n) + 1);
+        private synchronized void count(PercolationCounters trial) {
+            counters.add(trial);
+            counted += 1;
+        }
+    }
+
+    // opens the elements of a lattice in uniformly random order without a permutation of all of
+    // them: elements are drawn uniformly and the ones drawn before are skipped, which a bit per
+    // element remembers, and the fresh ones go to openAll a chunk at a time. Opening a fraction p
+    // takes about -ln(1 - p) draws per element, 0.37 at the cubic threshold and 0.9 at the
+    // square one, and a worker needs 1/8 byte per element on top of its lattice instead of 4
+    private static class Experiment implements MonteCarlo.Trial {
+        private static final int CHUNK = 1024;
+
+        private final Lattice lattice;
+        private final long[] drawn;
+        private final int[] chunk;
+        private final Outcome outcome;
+
+        public Experiment(Lattice lattice, Outcome outcome) {
+            this.lattice = lattice;
+            this.drawn = new long[(lattice.size() + 63) >>> 6];
+            this.chunk = new int[Math.min(CHUNK, lattice.size())];
+            this.outcome = outcome;
+        }
+
+        // reuses the lattice and the buffers of the worker, so a trial allocates nothing
+        @Override
+        public double run(SplittableRandom random) {
+            final PercolationCounters counters = PercolationCounters.ENABLED ? lattice.counters() : null;
+            if (counters != null) {
+                counters.reset();
+            }
+
+            lattice.reset();
+            Arrays.fill(drawn, 0);
+            final int size = lattice.size();
+            int opened = 0;
+            while (opened < size) {
+                int k = 0;
+                while (k < chunk.length && opened + k < size) {
+                    final int element = random.nextInt(size);
+                    if ((drawn[element >>> 6] & (1L << element)) == 0) {
+                        drawn[element >>> 6] |= 1L << element;
+                        chunk[k++] = element;
+                    }
+                }
+                final int percolatedAt = lattice.openAll(chunk, 0, k, true);
+                if (percolatedAt >= 0) {
+                    opened += percolatedAt;
+                    break;
+                }
+                opened += k;
+            }
+
+            if (counters != null) {
+                outcome.count(counters);
+            }
+            return opened / (double) size;
         }
-        return percolation.numberOfOpenSites() / (double) ids.length;
     }
 }
@@ -0,0 +1,177 @@
+import edu.princeton.cs.algs4.StdOut;
+import edu.princeton.cs.algs4.StdStats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Finite-size-scaling sweep: PercolationStats for many grid sizes in one run. All (n, trials)
+// work units share one pool and are handed out largest grid first, so the long units do not
+// end up last. Every worker keeps one union-find and one order buffer sized for the largest grid
+// and reuses them for all sizes. The trials for n use the seed seed(masterSeed, n), so each row
+// equals new PercolationStats(n, trials, seed(masterSeed, n), threads).
+public class PercolationSweep {
+    // trials in one work unit
+    private static final int UNIT = 4;
+
+    private final int[] sizes;
+    private final int trials;
+    private final double[] mean;
+    private final double[] stddev;
+
+    // runs trials on an n-by-n grid for every n in sizes
+    public PercolationSweep(int[] sizes, int trials, long seed, int threads) {
+        if (sizes == null || sizes.length == 0) {
+            throw new IllegalArgumentException("sizes must be not empty");
+        }
+        for (int n: sizes) {
+            if (n <= 0 || n > 46340) {
+                throw new IllegalArgumentException("every n must be in [1, 46340]");
+            }
+        }
+        if (trials <= 0) {
+            throw new IllegalArgumentException("trials must be > 0");
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be > 0");
+        }
+
+        this.sizes = sizes.clone();
+        this.trials = trials;
+        Arrays.sort(this.sizes);
+        for (int i = 1; i < this.sizes.length; i++) {
+            if (this.sizes[i] == this.sizes[i - 1]) {
+                throw new IllegalArgumentException("sizes must be distinct");
+            }
+        }
+        final int largest = this.sizes[this.sizes.length - 1];
+
+        // units as (size index, first trial), largest size first
+        final List<int[]> units = new ArrayList<>();
+        for (int i = this.sizes.length - 1; i >= 0; i--) {
+            for (int from = 0; from < trials; from += UNIT) {
+                units.add(new int[] {i, from});
+            }
+        }
+
+        final double[][] results = new double[this.sizes.length][trials];
+        final AtomicInteger next = new AtomicInteger();
+        final List<Callable<Void>> workers = new ArrayList<>();
+        for (int w = 0; w < threads; w++) {
+            workers.add(() -> {
+                final SiteUnionFind sites = new SiteUnionFind(largest * largest);
+                final int[] ids = new int[largest * largest];
+                for (int u = next.getAndIncrement(); u < units.size(); u = next.getAndIncrement()) {
+                    final int i = units.get(u)[0];
+                    final int n = this.sizes[i];
+                    final FlatPercolation percolation = new FlatPercolation(n, sites);
+                    final long sizeSeed = seed(seed, n);
+                    for (int t = units.get(u)[1]; t < Math.min(trials, units.get(u)[1] + UNIT); t++) {
+                        results[i][t] = runTrial(percolation, ids, MonteCarlo.random(sizeSeed, t));
+                    }
+                }
+                return null;
+            });
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (Future<Void> future: pool.invokeAll(workers)) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("sweep was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("sweep failed", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        mean = new double[this.sizes.length];
+        stddev = new double[this.sizes.length];
+        for (int i = 0; i < this.sizes.length; i++) {
+            mean[i] = StdStats.mean(results[i]);
+            stddev[i] = StdStats.stddev(results[i]);
+        }
+    }
+
+    // seed used for the trials on the n-by-n grid
+    public static long seed(long masterSeed, int n) {
+        return MonteCarlo.random(masterSeed, n).nextLong();
+    }
+
+    // test client: java PercolationSweep trials seed n1 n2 ... prints the CSV table
+    public static void main(String[] args) {
+        final int trials = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        final long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        int[] sizes = {64, 128, 256, 512};
+        if (args.length > 2) {
+            sizes = new int[args.length - 2];
+            for (int i = 2; i < args.length; i++) {
+                sizes[i - 2] = Integer.parseInt(args[i]);
+            }
+        }
+        final int threads = Runtime.getRuntime().availableProcessors();
+        final PercolationSweep sweep = new PercolationSweep(sizes, trials, seed, threads);
+        StdOut.print(sweep.csv());
+    }
+
+    // grid sizes of the sweep, in increasing order
+    public int[] sizes() {
+        return sizes.clone();
+    }
+
+    // sample mean of percolation threshold for the n-by-n grid
+    public double mean(int n) {
+        return mean[index(n)];
+    }
+
+    // sample standard deviation of percolation threshold for the n-by-n grid
+    public double stddev(int n) {
+        return stddev[index(n)];
+    }
+
+    // low endpoint of 95% confidence interval for the n-by-n grid
+    public double confidenceLo(int n) {
+        return mean(n) - 1.96 * stddev(n) / Math.sqrt(trials);
+    }
+
+    // high endpoint of 95% confidence interval for the n-by-n grid
+    public double confidenceHi(int n) {
+        return mean(n) + 1.96 * stddev(n) / Math.sqrt(trials);
+    }
+
+    // the results as CSV, one line per grid size
+    public String csv() {
+        final StringBuilder csv = new StringBuilder("n,trials,mean,stddev,confidenceLo,confidenceHi\n");
+        for (int n: sizes) {
+            csv.append(String.format(Locale.ROOT, "%d,%d,%.10f,%.10f,%.10f,%.10f%n",
+                                     n, trials, mean(n), stddev(n), confidenceLo(n), confidenceHi(n)));
+        }
+        return csv.toString();
+    }
+
+    private int index(int n) {
+        final int i = Arrays.binarySearch(sizes, n);
+        if (i < 0) {
+            throw new IllegalArgumentException("n is not one of the sizes of the sweep");
+        }
+        return i;
+    }
+
+    private static double runTrial(FlatPercolation percolation, int[] ids, SplittableRandom random) {
+        final int sites = percolation.size();
+        percolation.reset();
+        MonteCarlo.permutation(ids, sites, random);
+        final int percolatedAt = percolation.openAll(ids, 0, sites, true);
+        return (percolatedAt >= 0 ? percolatedAt : sites) / (double) sites;
+    }
+}
@@ -12,7 +12,9 @@
  *
  *  After each site is opened, it draws full sites in light blue,
  *  open sites (that aren't full) in white, and blocked sites in black,
- *  with with site (1, 1) in the upper left-hand corner.
+ *  with with site (1, 1) in the upper left-hand corner. The whole grid
+ *  is drawn once; after that only the sites that changed are repainted
+ *  on the off-screen canvas.
  *
  ******************************************************************************/
 
@@ -34,11 +36,13 @@ public class PercolationVisualizer {
         StdDraw.setYscale(-0.05 * n, 1.05 * n);   // leave a border to write text
         StdDraw.filledSquare(n / 2.0, n / 2.0, n / 2.0);
 
-        // draw n-by-n grid
+        // draw n-by-n grid from one snapshot of the full sites
+        final long[] full = perc.fullSites();
         int opened = 0;
         for (int row = 1; row <= n; row++) {
             for (int col = 1; col <= n; col++) {
-                if (perc.isFull(row, col)) {
+                final int site = n * (row - 1) + (col - 1);
+                if ((full[site >>> 6] & (1L << site)) != 0) {
                     StdDraw.setPenColor(StdDraw.BOOK_LIGHT_BLUE);
                     opened++;
                 }
@@ -52,13 +56,33 @@ public class PercolationVisualizer {
             }
         }
 
-        // write status text
+        drawStatus(perc, n, opened);
+    }
+
+    // repaint only the sites that changed colour since the previous call;
+    // perc must track changes, and the rest of the canvas must still hold the previous frame
+    public static void drawChanges(Percolation perc, int n) {
+        for (int site: perc.changedSites()) {
+            int row = site / n + 1;
+            int col = site % n + 1;
+            if (perc.isFull(row, col)) StdDraw.setPenColor(StdDraw.BOOK_LIGHT_BLUE);
+            else StdDraw.setPenColor(StdDraw.WHITE);
+            StdDraw.filledSquare(col - 0.5, n - row + 0.5, 0.45);
+        }
+
+        // wipe the old status text
+        StdDraw.setPenColor(StdDraw.WHITE);
+        StdDraw.filledRectangle(n / 2.0, -0.025 * n, 0.55 * n, 0.025 * n);
+        drawStatus(perc, n, perc.numberOfOpenSites());
+    }
+
+    // write status text
+    private static void drawStatus(Percolation perc, int n, int opened) {
         StdDraw.setFont(new Font("SansSerif", Font.PLAIN, 12));
         StdDraw.setPenColor(StdDraw.BLACK);
         StdDraw.text(0.25 * n, -0.025 * n, opened + " open sites");
         if (perc.percolates()) StdDraw.text(0.75 * n, -0.025 * n, "percolates");
         else StdDraw.text(0.75 * n, -0.025 * n, "does not percolate");
-
     }
 
     public static void main(String[] args) {
@@ -69,7 +93,7 @@ public class PercolationVisualizer {
         StdDraw.enableDoubleBuffering();
 
         // repeatedly read in sites to open and draw resulting system
-        Percolation perc = new Percolation(n);
+        Percolation perc = new Percolation(n, true);
         draw(perc, n);
         StdDraw.show();
         StdDraw.pause(DELAY);
@@ -77,7 +101,7 @@ public class PercolationVisualizer {
             int i = in.readInt();
             int j = in.readInt();
             perc.open(i, j);
-            draw(perc, n);
+            drawChanges(perc, n);
             StdDraw.show();
             StdDraw.pause(DELAY);
         }
@@ -0,0 +1,307 @@
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Percolation that can take back its opens. The union-find links by rank and never compresses
+// paths, so every open changes only a few entries; they are pushed on an undo log and restored
+// in LIFO order. checkpoint() marks the current state, rollback() returns to a mark, and close()
+// takes back the most recent open, which lets experiments branch from a shared prefix of opens.
+public class RollbackPercolation implements PercolationEngine {
+    // an open pushes one record per union (child root, its old parent entry, old parent entry
+    // and old status of the surviving root) and then one for itself (site, unions, percolated)
+    private static final int UNION_RECORD = 4;
+    private static final int OPEN_RECORD = 3;
+
+    private final int n;
+    private final int[] parent;
+    private final byte[] status;
+
+    private int[] log = new int[64];
+    private int logSize = 0;
+    private final PercolationCounters counters = new PercolationCounters();
+
+    private int openSites = 0;
+    private boolean percolates = false;
+
+    // creates n-by-n grid, with all sites initially blocked
+    public RollbackPercolation(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be > 0");
+        }
+        if (n > 46340) {
+            throw new IllegalArgumentException("n * n must fit into int");
+        }
+
+        this.n = n;
+        this.parent = new int[n * n];
+        this.status = new byte[n * n];
+    }
+
+    // opens the site (row, col) if it is not open already
+    @Override
+    public void open(int row, int col) {
+        validate(row, col);
+
+        open(toId(row, col), row, col);
+    }
+
+    // opens the site with the given flat index if it is not open already
+    @Override
+    public void open(int site) {
+        if (site < 0 || site >= n * n) {
+            throw new IllegalArgumentException("site must be inside the grid");
+        }
+
+        open(site, site / n + 1, site % n + 1);
+    }
+
+    // blocks the site (row, col) again; it must be the most recently opened site
+    public void close(int row, int col) {
+        validate(row, col);
+
+        if (openSites == 0 || log[logSize - OPEN_RECORD] != toId(row, col)) {
+            throw new IllegalArgumentException("only the most recently opened site can be closed");
+        }
+        undo();
+    }
+
+    // mark of the current state for rollback: the number of opens done so far
+    public int checkpoint() {
+        return openSites;
+    }
+
+    // takes back every open made after the checkpoint
+    public void rollback(int checkpoint) {
+        if (checkpoint < 0 || checkpoint > openSites) {
+            throw new IllegalArgumentException("checkpoint must be in [0, numberOfOpenSites()]");
+        }
+        while (openSites > checkpoint) {
+            undo();
+        }
+    }
+
+    // randomized check: after random opens, closes and rollbacks the grid must equal one rebuilt
+    // from scratch by opening the surviving sites in order; java RollbackPercolation n rounds
+    public static void main(String[] args) {
+        final int maxN = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 300;
+        final SplittableRandom random = new SplittableRandom(2024);
+        for (int round = 0; round < rounds; round++) {
+            final int n = 1 + random.nextInt(maxN);
+            final RollbackPercolation percolation = new RollbackPercolation(n);
+            // the sites opened so far and not taken back, in order
+            final int[] opened = new int[4 * n * n];
+            int count = 0;
+            for (int step = 0; step < 4 * n * n; step++) {
+                final int action = random.nextInt(10);
+                if (action < 6 || count == 0) {
+                    final int site = random.nextInt(n * n);
+                    final int before = percolation.numberOfOpenSites();
+                    percolation.open(site);
+                    if (percolation.numberOfOpenSites() > before) {
+                        opened[count++] = site;
+                    }
+                } else if (action < 8) {
+                    final int site = opened[--count];
+                    percolation.close(site / n + 1, site % n + 1);
+                } else {
+                    count = random.nextInt(count + 1);
+                    percolation.rollback(count);
+                }
+
+                if (random.nextInt(n) == 0) {
+                    final FlatPercolation expected = new FlatPercolation(n);
+                    for (int i = 0; i < count; i++) {
+                        expected.open(opened[i]);
+                    }
+                    if (expected.percolates() != percolation.percolates()
+                            || expected.numberOfOpenSites() != percolation.numberOfOpenSites()
+                            || !Arrays.equals(expected.fullSites(), percolation.fullSites())) {
+                        throw new IllegalStateException("rollback differs from a rebuild, n = " + n);
+                    }
+                    for (int row = 1; row <= n; row++) {
+                        for (int col = 1; col <= n; col++) {
+                            if (expected.isOpen(row, col) != percolation.isOpen(row, col)) {
+                                throw new IllegalStateException("rollback differs from a rebuild, n = " + n);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        StdOut.println("OK: " + rounds + " random histories agree with rebuilds from scratch");
+    }
+
+    // is the site (row, col) open?
+    @Override
+    public boolean isOpen(int row, int col) {
+        validate(row, col);
+
+        return status[toId(row, col)] != 0;
+    }
+
+    // is the site (row, col) full?
+    @Override
+    public boolean isFull(int row, int col) {
+        validate(row, col);
+
+        if (PercolationCounters.ENABLED) {
+            counters.isFull();
+        }
+        final int v = toId(row, col);
+        return status[v] != 0 && (status[find(v)] & SiteUnionFind.TOP) != 0;
+    }
+
+    // number of sites
+    @Override
+    public int size() {
+        return n * n;
+    }
+
+    // returns the number of open sites
+    @Override
+    public int numberOfOpenSites() {
+        return openSites;
+    }
+
+    // does the system percolate?
+    @Override
+    public boolean percolates() {
+        return percolates;
+    }
+
+    // hot-path counters of the union-find of this grid; they only move with -Dpercolation.counters=true
+    @Override
+    public PercolationCounters counters() {
+        return counters;
+    }
+
+    // blocks all sites again and forgets the undo log
+    @Override
+    public void reset() {
+        Arrays.fill(status, (byte) 0);
+        logSize = 0;
+        openSites = 0;
+        percolates = false;
+    }
+
+    private void open(int v, int row, int col) {
+        if (status[v] != 0) {
+            return;
+        }
+
+        final boolean percolated = percolates;
+        openSites += 1;
+        parent[v] = -1;
+        final int flags = (row == 1 ? SiteUnionFind.TOP : 0) | (row == n ? SiteUnionFind.BOTTOM : 0);
+        status[v] = (byte) (SiteUnionFind.OPEN | flags);
+
+        int unions = 0;
+        if (row > 1 && status[v - n] != 0) {
+            unions += union(v, v - n);
+        }
+        if (row < n && status[v + n] != 0) {
+            unions += union(v, v + n);
+        }
+        if (col > 1 && status[v - 1] != 0) {
+            unions += union(v, v - 1);
+        }
+        if (col < n && status[v + 1] != 0) {
+            unions += union(v, v + 1);
+        }
+
+        if ((status[find(v)] & SiteUnionFind.SPANNING) == SiteUnionFind.SPANNING) {
+            percolates = true;
+        }
+        push(v, unions, percolated ? 1 : 0);
+    }
+
+    // pops the most recent open and its unions; without path compression the child roots
+    // still point straight at the roots they were linked to
+    private void undo() {
+        logSize -= OPEN_RECORD;
+        final int v = log[logSize];
+        final int unions = log[logSize + 1];
+        percolates = log[logSize + 2] != 0;
+
+        for (int i = 0; i < unions; i++) {
+            logSize -= UNION_RECORD;
+            final int child = log[logSize];
+            final int root = parent[child];
+            parent[child] = log[logSize + 1];
+            parent[root] = log[logSize + 2];
+            status[root] = (byte) log[logSize + 3];
+        }
+
+        status[v] = 0;
+        openSites -= 1;
+    }
+
+    private int find(int v) {
+        int length = 0;
+        while (parent[v] >= 0) {
+            v = parent[v];
+            length += 1;
+        }
+        if (PercolationCounters.ENABLED) {
+            counters.find(length);
+        }
+        return v;
+    }
+
+    // union by rank, a root holding -(rank + 1); returns 1 if two clusters were merged
+    private int union(int v, int u) {
+        int rootV = find(v);
+        int rootU = find(u);
+        if (rootV == rootU) {
+            return 0;
+        }
+        if (parent[rootV] > parent[rootU]) {
+            final int tmp = rootV;
+            rootV = rootU;
+            rootU = tmp;
+        }
+        push(rootU, parent[rootU], parent[rootV], status[rootV]);
+        if (parent[rootV] == parent[rootU]) {
+            parent[rootV] -= 1;
+        }
+        parent[rootU] = rootV;
+        status[rootV] |= status[rootU];
+        if (PercolationCounters.ENABLED) {
+            counters.union();
+        }
+        return 1;
+    }
+
+    private void push(int a, int b, int c) {
+        ensureLog(OPEN_RECORD);
+        log[logSize++] = a;
+        log[logSize++] = b;
+        log[logSize++] = c;
+    }
+
+    private void push(int a, int b, int c, int d) {
+        ensureLog(UNION_RECORD);
+        log[logSize++] = a;
+        log[logSize++] = b;
+        log[logSize++] = c;
+        log[logSize++] = d;
+    }
+
+    private void ensureLog(int extra) {
+        if (logSize + extra > log.length) {
+            log = Arrays.copyOf(log, 2 * log.length);
+        }
+    }
+
+    private void validate(int row, int col) {
+        if (!(1 <= row && row <= n && 1 <= col && col <= n)) {
+            throw new IllegalArgumentException("row and col must be inside the grid");
+        }
+    }
+
+    private int toId(int row, int col) {
+        return n * (row - 1) + (col - 1);
+    }
+}
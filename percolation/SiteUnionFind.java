@@ -0,0 +1,104 @@
+import java.util.Arrays;
+
+// Union-find over sites numbered 0..size-1 that start blocked. parent[v] < 0 marks a root whose
+// cluster has -parent[v] sites; the flags of a cluster (open, touches the top, touches the bottom)
+// are kept on its root. find uses path halving and union is by size. That is 5 bytes per site.
+public final class SiteUnionFind {
+    public static final byte OPEN = 1;
+    public static final byte TOP = 2;
+    public static final byte BOTTOM = 4;
+    public static final byte SPANNING = TOP | BOTTOM;
+
+    private final int[] parent;
+    private final byte[] status;
+    private final PercolationCounters counters = new PercolationCounters();
+
+    // creates size blocked sites
+    public SiteUnionFind(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must be >= 0");
+        }
+        this.parent = new int[size];
+        this.status = new byte[size];
+    }
+
+    // number of sites
+    public int size() {
+        return parent.length;
+    }
+
+    // turns the blocked site v into an open cluster of its own with the given extra flags
+    public void open(int v, byte flags) {
+        parent[v] = -1;
+        status[v] = (byte) (OPEN | flags);
+    }
+
+    // is the site v open?
+    public boolean isOpen(int v) {
+        return status[v] != 0;
+    }
+
+    // root of the cluster of v
+    public int find(int v) {
+        int length = 0;
+        while (parent[v] >= 0) {
+            final int p = parent[v];
+            if (parent[p] >= 0) {
+                parent[v] = parent[p];
+            }
+            v = parent[v];
+            length += 1;
+        }
+        if (PercolationCounters.ENABLED) {
+            counters.find(length);
+        }
+        return v;
+    }
+
+    // flags of the cluster of v
+    public byte flags(int v) {
+        return status[find(v)];
+    }
+
+    // number of sites in the cluster whose root is given
+    public int clusterSize(int root) {
+        return -parent[root];
+    }
+
+    // merges the clusters of the open sites v and u; returns the root of the merged cluster,
+    // or -1 if they were already one cluster
+    public int union(int v, int u) {
+        int rootV = find(v);
+        int rootU = find(u);
+        if (rootV == rootU) {
+            return -1;
+        }
+        if (parent[rootV] > parent[rootU]) {
+            final int tmp = rootV;
+            rootV = rootU;
+            rootU = tmp;
+        }
+        parent[rootV] += parent[rootU];
+        parent[rootU] = rootV;
+        status[rootV] |= status[rootU];
+        if (PercolationCounters.ENABLED) {
+            counters.union();
+        }
+        return rootV;
+    }
+
+    // hot-path counters of this union-find; they only move with -Dpercolation.counters=true
+    public PercolationCounters counters() {
+        return counters;
+    }
+
+    // blocks all sites again; parent links are rewritten when a site is opened, so only the status is cleared
+    public void reset() {
+        reset(status.length);
+    }
+
+    // blocks the sites 0..count-1 again, for users of only a prefix of the sites
+    public void reset(int count) {
+        Arrays.fill(status, 0, count, (byte) 0);
+    }
+}
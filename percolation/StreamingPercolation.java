@@ -0,0 +1,200 @@
+import edu.princeton.cs.algs4.In;
+import edu.princeton.cs.algs4.StdOut;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+// Hoshen-Kopelman cluster labeling of a grid that is read one row at a time.
+// Only the labels of the previous and the current row are kept: labels 0..n-1 belong to
+// the clusters of the previous row, labels n..2n-1 to the ones started in the current row.
+// After every row the live clusters are relabeled into 0..n-1 and the clusters that did not
+// reach the new row are finished, so memory is O(n) plus the size histogram.
+public class StreamingPercolation {
+    private final int n;
+    private final int[] labels;
+    private final int[] parent;
+    private final long[] size;
+    private final boolean[] top;
+    private final int[] relabel;
+    private final long[] liveSize;
+    private final boolean[] liveTop;
+    private final TreeMap<Long, Long> histogram = new TreeMap<>();
+
+    private int rows = 0;
+    private boolean finished = false;
+    private long clusters = 0;
+    private boolean percolates = false;
+
+    // prepares to read a grid with n columns
+    public StreamingPercolation(int n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be > 0");
+        }
+
+        this.n = n;
+        this.labels = new int[n];
+        this.parent = new int[2 * n];
+        this.size = new long[2 * n];
+        this.top = new boolean[2 * n];
+        this.relabel = new int[2 * n];
+        this.liveSize = new long[n];
+        this.liveTop = new boolean[n];
+        Arrays.fill(labels, -1);
+        Arrays.fill(parent, -1);
+    }
+
+    // adds the next row of the grid; open[col] tells whether the site in column col (from 0) is open
+    public void addRow(boolean[] open) {
+        if (open == null || open.length != n) {
+            throw new IllegalArgumentException("row must have n sites");
+        }
+        if (finished) {
+            throw new IllegalStateException("the grid is already finished");
+        }
+
+        for (int i = n; i < 2 * n; i++) {
+            parent[i] = i;
+            size[i] = 0;
+            top[i] = rows == 0;
+        }
+
+        for (int col = 0; col < n; col++) {
+            if (!open[col]) {
+                labels[col] = -1;
+                continue;
+            }
+            final int up = labels[col];
+            int label = n + col;
+            if (col > 0 && open[col - 1]) {
+                label = find(labels[col - 1]);
+            }
+            if (up >= 0) {
+                label = label == n + col ? find(up) : union(label, up);
+            }
+            size[label] += 1;
+            labels[col] = label;
+        }
+        rows += 1;
+        compact();
+    }
+
+    // declares that no more rows follow and finishes the remaining clusters
+    public void finish() {
+        if (rows == 0) {
+            throw new IllegalStateException("no rows were added");
+        }
+        if (finished) {
+            throw new IllegalStateException("the grid is already finished");
+        }
+        for (int v = 0; v < n && parent[v] == v; v++) {
+            percolates |= top[v];
+            count(size[v]);
+        }
+        finished = true;
+    }
+
+    // number of rows read so far
+    public int rows() {
+        return rows;
+    }
+
+    // does an open cluster connect the first row with the last one? (valid after finish)
+    public boolean percolates() {
+        return percolates;
+    }
+
+    // number of finished clusters
+    public long clusters() {
+        return clusters;
+    }
+
+    // number of finished clusters of each size, by size
+    public SortedMap<Long, Long> histogram() {
+        return Collections.unmodifiableSortedMap(histogram);
+    }
+
+    // reads n and then n rows of n characters ('1' or '.' open, '0' or '#' blocked) from a file
+    // or standard input and prints whether the grid percolates and its cluster size histogram
+    public static void main(String[] args) {
+        final In in = args.length > 0 ? new In(args[0]) : new In();
+        final int n = Integer.parseInt(in.readLine().trim());
+        final StreamingPercolation percolation = new StreamingPercolation(n);
+        final boolean[] row = new boolean[n];
+        while (in.hasNextLine()) {
+            final String line = in.readLine();
+            if (line.isEmpty()) {
+                continue;
+            }
+            for (int col = 0; col < n; col++) {
+                row[col] = line.charAt(col) == '1' || line.charAt(col) == '.';
+            }
+            percolation.addRow(row);
+        }
+        percolation.finish();
+
+        StdOut.println(percolation.percolates() ? "percolates" : "does not percolate");
+        StdOut.println(percolation.clusters() + " clusters");
+        for (Long clusterSize: percolation.histogram().keySet()) {
+            StdOut.println(clusterSize + " " + percolation.histogram().get(clusterSize));
+        }
+    }
+
+    private int find(int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    // merges the clusters of two labels and returns the surviving root
+    private int union(int v, int u) {
+        final int rootV = find(v);
+        final int rootU = find(u);
+        if (rootV == rootU) {
+            return rootV;
+        }
+        parent[rootU] = rootV;
+        size[rootV] += size[rootU];
+        top[rootV] |= top[rootU];
+        return rootV;
+    }
+
+    // finishes the clusters that did not reach the current row and moves the live ones to 0..n-1
+    private void compact() {
+        Arrays.fill(relabel, -1);
+        int live = 0;
+        for (int col = 0; col < n; col++) {
+            if (labels[col] < 0) {
+                continue;
+            }
+            final int root = find(labels[col]);
+            if (relabel[root] < 0) {
+                relabel[root] = live;
+                liveSize[live] = size[root];
+                liveTop[live] = top[root];
+                live += 1;
+            }
+            labels[col] = relabel[root];
+        }
+
+        for (int v = 0; v < 2 * n; v++) {
+            if (parent[v] == v && size[v] > 0 && relabel[v] < 0) {
+                count(size[v]);
+            }
+        }
+
+        for (int v = 0; v < n; v++) {
+            parent[v] = v < live ? v : -1;
+            size[v] = v < live ? liveSize[v] : 0;
+            top[v] = v < live && liveTop[v];
+        }
+    }
+
+    private void count(long clusterSize) {
+        clusters += 1;
+        histogram.merge(clusterSize, 1L, Long::sum);
+    }
+}
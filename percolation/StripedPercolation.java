@@ -0,0 +1,217 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Cluster labeling of a fully specified n-by-n grid, split into horizontal stripes.
+// Each stripe is labeled in parallel with a union-find that only touches its own sites,
+// the boundary rows are then merged sequentially, and a last parallel pass points every
+// open site straight at its root, so isFull is a couple of array reads.
+public class StripedPercolation {
+    private static final byte OPEN = 1;
+    private static final byte TOP = 2;
+    private static final byte BOTTOM = 4;
+
+    private final int n;
+    private final int[] parent;
+    private final byte[] status;
+    private final int openSites;
+    private final boolean percolates;
+
+    // labels the grid where sites[row - 1][col - 1] tells whether the site (row, col) is open
+    public StripedPercolation(boolean[][] sites, int threads) {
+        if (sites == null || sites.length == 0) {
+            throw new IllegalArgumentException("sites must be a non-empty grid");
+        }
+        if (sites.length > 46340) {
+            throw new IllegalArgumentException("n * n must fit into int");
+        }
+        for (boolean[] row: sites) {
+            if (row == null || row.length != sites.length) {
+                throw new IllegalArgumentException("sites must be an n-by-n grid");
+            }
+        }
+        if (threads <= 0) {
+            throw new IllegalArgumentException("threads must be > 0");
+        }
+
+        this.n = sites.length;
+        this.parent = new int[n * n];
+        this.status = new byte[n * n];
+
+        final int stripes = Math.min(n, threads);
+        final int[] bounds = new int[stripes + 1];
+        for (int i = 0; i <= stripes; i++) {
+            bounds[i] = (int) ((long) n * i / stripes);
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            final List<Callable<Integer>> labeling = new ArrayList<>();
+            for (int i = 0; i < stripes; i++) {
+                final int from = bounds[i];
+                final int to = bounds[i + 1];
+                labeling.add(() -> labelStripe(sites, from, to));
+            }
+            int opened = 0;
+            for (Integer stripeOpened: invokeAll(pool, labeling)) {
+                opened += stripeOpened;
+            }
+            openSites = opened;
+
+            for (int i = 1; i < stripes; i++) {
+                final int row = bounds[i];
+                for (int col = 0; col < n; col++) {
+                    final int v = row * n + col;
+                    if (status[v] != 0 && status[v - n] != 0) {
+                        union(v, v - n);
+                    }
+                }
+            }
+
+            boolean percolated = false;
+            for (int col = 0; col < n; col++) {
+                if (status[col] != 0) {
+                    status[find(col)] |= TOP;
+                }
+            }
+            for (int v = n * (n - 1); v < n * n; v++) {
+                if (status[v] != 0) {
+                    final int root = find(v);
+                    status[root] |= BOTTOM;
+                    percolated |= (status[root] & TOP) != 0;
+                }
+            }
+            percolates = percolated;
+
+            final List<Callable<Integer>> flattening = new ArrayList<>();
+            for (int i = 0; i < stripes; i++) {
+                final int from = bounds[i] * n;
+                final int to = bounds[i + 1] * n;
+                flattening.add(() -> flatten(from, to));
+            }
+            invokeAll(pool, flattening);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // is the site (row, col) open?
+    public boolean isOpen(int row, int col) {
+        validate(row, col);
+
+        return status[toId(row, col)] != 0;
+    }
+
+    // is the site (row, col) full?
+    public boolean isFull(int row, int col) {
+        validate(row, col);
+
+        final int v = toId(row, col);
+        final int root = parent[v] < 0 ? v : parent[v];
+        return status[v] != 0 && (status[root] & TOP) != 0;
+    }
+
+    // returns the number of open sites
+    public int numberOfOpenSites() {
+        return openSites;
+    }
+
+    // does the system percolate?
+    public boolean percolates() {
+        return percolates;
+    }
+
+    private static List<Integer> invokeAll(ForkJoinPool pool, List<Callable<Integer>> tasks) {
+        final List<Integer> results = new ArrayList<>();
+        for (Future<Integer> future: pool.invokeAll(tasks)) {
+            try {
+                results.add(future.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("labeling was interrupted", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("labeling failed", e.getCause());
+            }
+        }
+        return results;
+    }
+
+    // labels rows [from, to); unions never leave the stripe, so stripes do not share any writes
+    private int labelStripe(boolean[][] sites, int from, int to) {
+        int opened = 0;
+        for (int row = from; row < to; row++) {
+            for (int col = 0; col < n; col++) {
+                if (!sites[row][col]) {
+                    continue;
+                }
+                final int v = row * n + col;
+                opened += 1;
+                parent[v] = -1;
+                status[v] = OPEN;
+                if (col > 0 && status[v - 1] != 0) {
+                    union(v, v - 1);
+                }
+                if (row > from && status[v - n] != 0) {
+                    union(v, v - n);
+                }
+            }
+        }
+        return opened;
+    }
+
+    // points every open non-root site in [from, to) at its root. Other stripes may follow these
+    // links concurrently, but every write replaces an ancestor with another ancestor (the root),
+    // so their finds stay correct whichever value they read.
+    private int flatten(int from, int to) {
+        for (int v = from; v < to; v++) {
+            if (status[v] != 0 && parent[v] >= 0) {
+                int root = parent[v];
+                while (parent[root] >= 0) {
+                    root = parent[root];
+                }
+                parent[v] = root;
+            }
+        }
+        return 0;
+    }
+
+    private int find(int v) {
+        while (parent[v] >= 0) {
+            final int p = parent[v];
+            if (parent[p] >= 0) {
+                parent[v] = parent[p];
+            }
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private void union(int v, int u) {
+        int rootV = find(v);
+        int rootU = find(u);
+        if (rootV == rootU) {
+            return;
+        }
+        if (parent[rootV] > parent[rootU]) {
+            final int tmp = rootV;
+            rootV = rootU;
+            rootU = tmp;
+        }
+        parent[rootV] += parent[rootU];
+        parent[rootU] = rootV;
+        status[rootV] |= status[rootU];
+    }
+
+    private void validate(int row, int col) {
+        if (!(1 <= row && row <= n && 1 <= col && col <= n)) {
+            throw new IllegalArgumentException("row and col must be inside the grid");
+        }
+    }
+
+    private int toId(int row, int col) {
+        return n * (row - 1) + (col - 1);
+    }
+}
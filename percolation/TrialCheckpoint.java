@@ -0,0 +1,96 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+// Checkpoint file of a Monte Carlo run: the run's identity (lattice size, seed, number of trials),
+// the index of the next trial to run, which is all the RNG state there is since trial streams are
+// derived from the seed and the trial index, the running mean and variance of the completed
+// trials, which read() recomputes to detect a corrupted file, and their results in trial order.
+public final class TrialCheckpoint {
+    private static final int MAGIC = 0x50435431;
+
+    private TrialCheckpoint() { }
+
+    // loads the completed trials of the run into results and returns how many there are;
+    // 0 if the file does not exist yet
+    public static int read(File file, int size, long seed, double[] results) {
+        if (!file.exists()) {
+            return 0;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException(file + " is not a checkpoint");
+            }
+            if (in.readInt() != size || in.readLong() != seed || in.readInt() != results.length) {
+                throw new IllegalArgumentException(file + " belongs to a different run");
+            }
+            final int completed = in.readInt();
+            if (completed < 0 || completed > results.length) {
+                throw new IllegalArgumentException(file + " is corrupted");
+            }
+            final double mean = in.readDouble();
+            final double variance = in.readDouble();
+            for (int i = 0; i < completed; i++) {
+                results[i] = in.readDouble();
+            }
+            // the summary is recomputed the same way it was written, so it must match bit for bit
+            final double[] expected = summary(results, completed);
+            if (Double.compare(mean, expected[0]) != 0 || Double.compare(variance, expected[1]) != 0) {
+                throw new IllegalArgumentException(file + " is corrupted");
+            }
+            return completed;
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot read " + file, e);
+        }
+    }
+
+    // saves the first completed results; the file is replaced atomically, so a crash while
+    // writing leaves the previous checkpoint intact
+    public static void write(File file, int size, long seed, double[] results, int completed) {
+        final double[] summary = summary(results, completed);
+
+        final File temp = new File(file.getPath() + ".tmp");
+        try {
+            try (FileOutputStream stream = new FileOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+                out.writeInt(MAGIC);
+                out.writeInt(size);
+                out.writeLong(seed);
+                out.writeInt(results.length);
+                out.writeInt(completed);
+                out.writeDouble(summary[0]);
+                out.writeDouble(summary[1]);
+                for (int i = 0; i < completed; i++) {
+                    out.writeDouble(results[i]);
+                }
+                // the data must be on disk before the rename, or a crash can leave an empty checkpoint
+                out.flush();
+                stream.getFD().sync();
+            }
+            Files.move(temp.toPath(), file.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("cannot write " + file, e);
+        }
+    }
+
+    // running mean and variance (Welford) of the first completed results
+    private static double[] summary(double[] results, int completed) {
+        double mean = 0;
+        double squares = 0;
+        for (int i = 0; i < completed; i++) {
+            final double delta = results[i] - mean;
+            mean += delta / (i + 1);
+            squares += delta * (results[i] - mean);
+        }
+        return new double[] {mean, completed > 1 ? squares / (completed - 1) : Double.NaN};
+    }
+}